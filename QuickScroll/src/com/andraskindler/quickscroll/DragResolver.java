@@ -0,0 +1,112 @@
+package com.andraskindler.quickscroll;
+
+/**
+ * Resolves a point of the scrollbar to what QuickScroll shows and scrolls to for every ACTION_MOVE: the row or section it points at, the pooled id of its indicator label and the list position to jump to.
+ * <p/>
+ * Labels are looked up in the section index when there is one, and asked from the Scrollable otherwise. Once the labels are pooled, resolving a move does not allocate.
+ */
+final class DragResolver {
+
+    /**
+     * Returned by {@link #resolve(int, int)} if the label differs from the last one resolved.
+     */
+    static final int LABEL_CHANGED = 1;
+    /**
+     * Returned by {@link #resolve(int, int)} if the list position differs from the last one resolved.
+     */
+    static final int POSITION_CHANGED = 2;
+
+    private final LabelPool mLabelPool;
+    private Scrollable mScrollable;
+    // first position of every section of a SectionIndexer, null without one
+    private int[] mSectionPositions;
+    private SectionIndex mSectionIndex;
+    private RowHeightIndex mRowHeights;
+    private int mItemCount;
+    private int mLabelId = -1;
+    private int mScrollPosition = -1;
+
+    DragResolver(final LabelPool pool) {
+        mLabelPool = pool;
+    }
+
+    /**
+     * Sets what the scrollbar maps to. The row height index is only used if it covers every row, and the section index only for the rows it covers.
+     */
+    void setSource(final Scrollable scrollable, final int[] sectionPositions, final SectionIndex index, final RowHeightIndex rowHeights, final int itemCount) {
+        mScrollable = scrollable;
+        mSectionPositions = sectionPositions;
+        mSectionIndex = index;
+        mRowHeights = rowHeights;
+        mItemCount = itemCount;
+    }
+
+    /**
+     * Returns the row at the given fraction of the scrollbar, or the section with a SectionIndexer, clamped to the list; -1 if it is empty.
+     */
+    int getPosition(final double fraction) {
+        final int count = mSectionPositions != null ? mSectionPositions.length : mItemCount;
+        if (count <= 0)
+            return -1;
+        int position;
+        if (mSectionPositions == null && mRowHeights != null && mRowHeights.size() == mItemCount)
+            position = mRowHeights.getPosition((long) (fraction * mRowHeights.getTotalHeight()));
+        else
+            position = (int) (fraction * count);
+        if (position >= count)
+            position = count - 1;
+        if (position < 0)
+            position = 0;
+        return position;
+    }
+
+    /**
+     * Looks up the label and the list position of a position returned by {@link #getPosition(double)}.
+     *
+     * @return LABEL_CHANGED and POSITION_CHANGED combined, for what differs from the last position resolved
+     */
+    int resolve(final int position, final int groupPosition) {
+        final int labelId;
+        final int scrollPosition;
+        if (mSectionPositions == null && mSectionIndex != null && position < mSectionIndex.getItemCount()) {
+            labelId = mLabelPool.intern(mSectionIndex.getLabel(mSectionIndex.getSectionForPosition(position)));
+            scrollPosition = mSectionIndex.getScrollPosition(position);
+        } else {
+            labelId = mLabelPool.intern(mScrollable.getIndicatorForPosition(position, groupPosition));
+            scrollPosition = mSectionPositions != null ? mSectionPositions[position] : mScrollable.getScrollPosition(position, groupPosition);
+        }
+        int changed = 0;
+        if (labelId != mLabelId) {
+            mLabelId = labelId;
+            changed |= LABEL_CHANGED;
+        }
+        if (scrollPosition != mScrollPosition) {
+            mScrollPosition = scrollPosition;
+            changed |= POSITION_CHANGED;
+        }
+        return changed;
+    }
+
+    int getLabelId() {
+        return mLabelId;
+    }
+
+    int getScrollPosition() {
+        return mScrollPosition;
+    }
+
+    /**
+     * Forgets the last label, e.g. after the label pool was cleared, so the next move reports it as changed.
+     */
+    void invalidateLabel() {
+        mLabelId = -1;
+    }
+
+    /**
+     * Forgets the last label and list position, so the next move reports both as changed.
+     */
+    void invalidate() {
+        mLabelId = -1;
+        mScrollPosition = -1;
+    }
+}
@@ -0,0 +1,138 @@
+package com.andraskindler.quickscroll;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseExpandableListAdapter;
+
+import java.util.List;
+
+/**
+ * A base ExpandableListAdapter for QuickScroll. Groups and children are kept in flat arrays with a table of child offsets, so every lookup is O(1), and the indicator text of every group is computed once when the data is set.
+ * <p/>
+ * Subclasses create row views in newGroupView() and newChildView() and fill them in bindGroupView() and bindChildView(); recycled rows are bound without being created again.
+ *
+ * @param <G> the group type
+ * @param <C> the child type
+ */
+public abstract class ExpandableScrollableAdapter<G, C> extends BaseExpandableListAdapter implements Scrollable {
+
+    private Object[] mGroups = new Object[0];
+    private Object[] mChildren = new Object[0];
+    // index of the first child of every group in mChildren, plus the total number of children
+    private int[] mChildOffsets = new int[1];
+    private String[] mIndicators = new String[0];
+
+    /**
+     * Replaces the data of the adapter and notifies its observers.
+     * <p/>
+     *
+     * @param groups   the groups, in display order
+     * @param children the children of every group, in the order of the groups
+     */
+    public void setData(final List<? extends G> groups, final List<? extends List<? extends C>> children) {
+        if (groups.size() != children.size())
+            throw new IllegalArgumentException("groups and children differ in size: " + groups.size() + " != " + children.size());
+        final int groupCount = groups.size();
+        final int[] offsets = new int[groupCount + 1];
+        for (int group = 0; group < groupCount; group++)
+            offsets[group + 1] = offsets[group] + children.get(group).size();
+        final Object[] flatChildren = new Object[offsets[groupCount]];
+        for (int group = 0; group < groupCount; group++) {
+            final List<? extends C> groupChildren = children.get(group);
+            for (int child = 0; child < groupChildren.size(); child++)
+                flatChildren[offsets[group] + child] = groupChildren.get(child);
+        }
+
+        mGroups = groups.toArray();
+        mChildren = flatChildren;
+        mChildOffsets = offsets;
+        mIndicators = new String[groupCount];
+        for (int group = 0; group < groupCount; group++)
+            mIndicators[group] = getIndicatorForGroup(group, getGroup(group));
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Returns the indicator text of a group; called once per group when the data is set. Defaults to String.valueOf(group).
+     */
+    protected String getIndicatorForGroup(final int groupPosition, final G group) {
+        return String.valueOf(group);
+    }
+
+    protected abstract View newGroupView(ViewGroup parent);
+
+    protected abstract void bindGroupView(View view, G group, boolean isExpanded);
+
+    protected abstract View newChildView(ViewGroup parent);
+
+    protected abstract void bindChildView(View view, C child, boolean isLastChild);
+
+    @Override
+    public int getGroupCount() {
+        return mGroups.length;
+    }
+
+    @Override
+    public int getChildrenCount(final int groupPosition) {
+        return mChildOffsets[groupPosition + 1] - mChildOffsets[groupPosition];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public G getGroup(final int groupPosition) {
+        return (G) mGroups[groupPosition];
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public C getChild(final int groupPosition, final int childPosition) {
+        return (C) mChildren[mChildOffsets[groupPosition] + childPosition];
+    }
+
+    @Override
+    public long getGroupId(final int groupPosition) {
+        return groupPosition;
+    }
+
+    @Override
+    public long getChildId(final int groupPosition, final int childPosition) {
+        return mChildOffsets[groupPosition] + childPosition;
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return false;
+    }
+
+    @Override
+    public boolean isChildSelectable(final int groupPosition, final int childPosition) {
+        return true;
+    }
+
+    @Override
+    public View getGroupView(final int groupPosition, final boolean isExpanded, final View convertView, final ViewGroup parent) {
+        final View view = convertView != null ? convertView : newGroupView(parent);
+        bindGroupView(view, getGroup(groupPosition), isExpanded);
+        return view;
+    }
+
+    @Override
+    public View getChildView(final int groupPosition, final int childPosition, final boolean isLastChild, final View convertView, final ViewGroup parent) {
+        final View view = convertView != null ? convertView : newChildView(parent);
+        bindChildView(view, getChild(groupPosition, childPosition), isLastChild);
+        return view;
+    }
+
+    /**
+     * Returns the precomputed indicator text of the group, null if the group is not known yet.
+     */
+    public String getIndicatorForPosition(final int childposition, final int groupposition) {
+        if (groupposition < 0 || groupposition >= mIndicators.length)
+            return null;
+        return mIndicators[groupposition];
+    }
+
+    public int getScrollPosition(final int childposition, final int groupposition) {
+        return childposition;
+    }
+}
@@ -0,0 +1,421 @@
+package com.andraskindler.quickscroll;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.text.TextPaint;
+import android.util.TypedValue;
+import android.view.View;
+
+/**
+ * The indicator of QuickScroll.TYPE_INDICATOR: a label box with a pin triangle pointing at the scrollbar, drawn in a single pass.
+ * <p/>
+ * The view spans the whole scrollbar area and draws the box around its anchor, so moving it or changing its label only invalidates the affected region and never requests a layout. The label is drawn straight from a char array, one line per newline, so showing a label does not allocate.
+ * Optionally, labels are rendered once into a LabelAtlas and blitted from it afterwards, see {@link #setLabelAtlasSize(int)}.
+ */
+public class IndicatorView extends View {
+
+    private static final int PIN_WIDTH = 25;
+    // width of the atlas slots in ems without a section index or setEms(), wider labels are drawn as text
+    private static final int DEFAULT_ATLAS_EMS = 6;
+    private static final char[] EMPTY = new char[0];
+
+    private final TextPaint mTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mBackgroundPaint = new Paint();
+    private final Paint mPinPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path mPinPath = new Path();
+    private final Paint.FontMetricsInt mFontMetrics = new Paint.FontMetricsInt();
+
+    // the label, a range of a char array that is not modified while shown
+    private char[] mText = EMPTY;
+    private int mTextStart, mTextLength;
+    private int mTextWidth, mLineCount;
+    private float mAnchor;
+    private int mRightInset;
+    private int mPaddingLeft, mPaddingTop, mPaddingRight, mPaddingBottom;
+    private int mEms;
+    private int mFixedWidth = -1, mFixedHeight = -1;
+    // current bounds of the box and the pin
+    private int mLeft, mTop, mRight, mBottom;
+    // pre-rendered labels, null if disabled, and the slot of the current label, -1 if it is drawn as text
+    private LabelAtlas mAtlas;
+    private int mAtlasSlot = -1;
+    // the labels the slots are sized for, null to size them from the text metrics
+    private SectionIndex mAtlasIndex;
+    private int mAtlasIndexCount;
+    private final Rect mAtlasBounds = new Rect();
+    private final Rect mAtlasTarget = new Rect();
+
+    public IndicatorView(Context context) {
+        super(context);
+        mTextPaint.setColor(Color.WHITE);
+        mBackgroundPaint.setColor(QuickScroll.GREY_LIGHT);
+        mPinPaint.setColor(Color.argb(224, 66, 66, 66));
+        mPinPaint.setStyle(Paint.Style.FILL);
+        mTextPaint.setTextAlign(Paint.Align.CENTER);
+        mTextPaint.getFontMetricsInt(mFontMetrics);
+        setText(EMPTY, 0, 0);
+    }
+
+    /**
+     * Sets the label, only invalidates the view.
+     */
+    public void setText(final String text) {
+        final char[] chars = text == null ? EMPTY : text.toCharArray();
+        setText(chars, 0, chars.length);
+    }
+
+    /**
+     * Sets the label to a range of a char array without copying it, like TextView.setText(char[], int, int). The range must not be modified while it is shown.
+     */
+    public void setText(final char[] text, final int start, final int length) {
+        setText(text, start, length, -1);
+    }
+
+    /**
+     * Sets the label like {@link #setText(char[], int, int)}, identified by the given LabelPool id. With a label atlas, the label is blitted from it if it was rendered with {@link #warmLabel(int, char[], int, int, boolean)}, sized by the metrics measured then, and measured and drawn as text otherwise; the atlas bitmap is never modified here, so a drag does not re-upload its texture.
+     *
+     * @param id the id of the label, -1 to always draw it as text
+     */
+    public void setText(final char[] text, final int start, final int length, final int id) {
+        mText = text;
+        mTextStart = start;
+        mTextLength = length;
+        mAtlasSlot = id >= 0 && mAtlas != null ? mAtlas.getSlot(id) : -1;
+        if (mAtlasSlot != -1) {
+            mTextWidth = mAtlas.getWidth(mAtlasSlot);
+            mLineCount = mAtlas.getLineCount(mAtlasSlot);
+        } else {
+            measureText();
+        }
+        updateBounds();
+    }
+
+    /**
+     * Returns true if the current label is blitted from the label atlas.
+     */
+    public boolean isLabelCached() {
+        return mAtlasSlot != -1;
+    }
+
+    /**
+     * Enables a cache of pre-rendered labels holding at most the given number of bytes, or disables it with 0. The slots are sized for one line of the ems set with {@link #setEms(int)}, or 6 ems, until {@link #prepareLabelAtlas(SectionIndex, int)} sizes them for the labels of an index.
+     */
+    public void setLabelAtlasSize(final int maxBytes) {
+        mAtlas = maxBytes > 0 ? new LabelAtlas(maxBytes) : null;
+        mAtlasSlot = -1;
+        if (mAtlas != null)
+            configureLabelAtlas();
+        invalidate(mLeft, mTop, mRight, mBottom);
+    }
+
+    public boolean hasLabelAtlas() {
+        return mAtlas != null;
+    }
+
+    /**
+     * Sizes the slots of the label atlas to fit the first distinct labels of the index, dropping the rendered labels if the size changed. Labels that do not fit are drawn as text. The slots are sized again for the same labels when the text metrics change.
+     *
+     * @param index the labels to size the slots for, or null to size them from the text metrics
+     * @return false if there is no atlas, or not a single slot fits into its memory cap
+     */
+    public boolean prepareLabelAtlas(final SectionIndex index, final int count) {
+        mAtlasIndex = index;
+        mAtlasIndexCount = count;
+        return mAtlas != null && configureLabelAtlas();
+    }
+
+    private boolean configureLabelAtlas() {
+        float width = 0;
+        int lines = 1;
+        if (mAtlasIndex != null) {
+            final int labels = Math.min(mAtlasIndex.getLabelCount(), mAtlasIndexCount);
+            for (int id = 0; id < labels; id++) {
+                final String label = mAtlasIndex.getLabelForId(id);
+                if (label == null)
+                    continue;
+                final char[] chars = label.toCharArray();
+                width = Math.max(width, measureWidth(chars, 0, chars.length));
+                lines = Math.max(lines, countLines(chars, 0, chars.length));
+            }
+        }
+        if (width == 0)
+            width = (mEms > 0 ? mEms : DEFAULT_ATLAS_EMS) * mTextPaint.getFontMetricsInt(null);
+        final boolean configured = mAtlas.configure((int) Math.ceil(width), lines * getLineHeight());
+        if (!configured)
+            mAtlasSlot = -1;
+        return configured;
+    }
+
+    /**
+     * Renders the label into the atlas if it is not there yet. Call it while the indicator is not being dragged, as it modifies the atlas bitmap.
+     *
+     * @param evict true to evict the least recently used label if the atlas is full, false to leave the atlas unchanged then
+     * @return false if there is no atlas, or it is full and evict is false
+     */
+    public boolean warmLabel(final int id, final char[] text, final int start, final int length, final boolean evict) {
+        if (mAtlas == null)
+            return false;
+        if (mAtlas.getSlot(id) != -1)
+            return true;
+        if (!evict && mAtlas.isFull())
+            return false;
+        final int lineCount = countLines(text, start, length);
+        final int width = (int) Math.ceil(measureWidth(text, start, length));
+        if (mAtlas.fits(width, lineCount * getLineHeight())) {
+            final int slot = mAtlas.allocate(id, width, lineCount);
+            // the slot may have held the label shown, which is drawn as text until it is set again
+            if (slot == mAtlasSlot)
+                mAtlasSlot = -1;
+            mAtlas.getSlotBounds(slot, mAtlasBounds);
+            drawLines(mAtlas.getCanvas(), text, start, length, mAtlasBounds.exactCenterX(),
+                    mAtlasBounds.top + (mAtlasBounds.height() - lineCount * getLineHeight()) / 2);
+        }
+        return true;
+    }
+
+    /**
+     * Measures the widest line and counts the lines of the label.
+     */
+    private void measureText() {
+        mTextWidth = (int) Math.ceil(measureWidth(mText, mTextStart, mTextLength));
+        mLineCount = countLines(mText, mTextStart, mTextLength);
+    }
+
+    private float measureWidth(final char[] text, final int start, final int length) {
+        float width = 0;
+        int lineStart = start;
+        final int end = start + length;
+        for (int i = start; i <= end; i++) {
+            if (i == end || text[i] == '\n') {
+                width = Math.max(width, mTextPaint.measureText(text, lineStart, i - lineStart));
+                lineStart = i + 1;
+            }
+        }
+        return width;
+    }
+
+    private static int countLines(final char[] text, final int start, final int length) {
+        int lines = 1;
+        for (int i = start; i < start + length; i++) {
+            if (text[i] == '\n')
+                lines++;
+        }
+        return lines;
+    }
+
+    /**
+     * Draws the label one line per newline, horizontally centered on x, starting at the given top.
+     */
+    private void drawLines(final Canvas canvas, final char[] text, final int start, final int length, final float x, final int top) {
+        final int lineHeight = getLineHeight();
+        int baseline = top - mFontMetrics.ascent;
+        int lineStart = start;
+        final int end = start + length;
+        for (int i = start; i <= end; i++) {
+            if (i == end || text[i] == '\n') {
+                canvas.drawText(text, lineStart, i - lineStart, x, baseline, mTextPaint);
+                baseline += lineHeight;
+                lineStart = i + 1;
+            }
+        }
+    }
+
+    /**
+     * Centers the box vertically around the given y coordinate, keeping it inside the view.
+     */
+    public void setAnchor(final float y) {
+        mAnchor = y;
+        updateBounds();
+    }
+
+    /**
+     * Sets the distance between the tip of the pin and the right edge of the view.
+     */
+    public void setRightInset(final int inset) {
+        if (mRightInset != inset) {
+            mRightInset = inset;
+            updateBounds();
+        }
+    }
+
+    public void setColors(final int background, final int tip, final int text) {
+        mBackgroundPaint.setColor(background);
+        mPinPaint.setColor(tip);
+        if (mTextPaint.getColor() != text) {
+            mTextPaint.setColor(text);
+            clearLabelAtlas();
+        }
+        invalidate(mLeft, mTop, mRight, mBottom);
+    }
+
+    public void setTextSize(final int unit, final float size) {
+        mTextPaint.setTextSize(TypedValue.applyDimension(unit, size, getResources().getDisplayMetrics()));
+        onTextMetricsChanged();
+    }
+
+    public void setTypeface(final Typeface typeface) {
+        mTextPaint.setTypeface(typeface);
+        onTextMetricsChanged();
+    }
+
+    /**
+     * Same semantics as TextView.setTypeface(Typeface, int): styles the typeface does not provide are faked.
+     */
+    public void setTypeface(final Typeface typeface, final int style) {
+        if (style > 0) {
+            final Typeface styled = typeface == null ? Typeface.defaultFromStyle(style) : Typeface.create(typeface, style);
+            final int need = style & ~(styled != null ? styled.getStyle() : 0);
+            mTextPaint.setTypeface(styled);
+            mTextPaint.setFakeBoldText((need & Typeface.BOLD) != 0);
+            mTextPaint.setTextSkewX((need & Typeface.ITALIC) != 0 ? -0.25f : 0);
+        } else {
+            mTextPaint.setTypeface(typeface);
+            mTextPaint.setFakeBoldText(false);
+            mTextPaint.setTextSkewX(0);
+        }
+        onTextMetricsChanged();
+    }
+
+    public void setTextPadding(final int left, final int top, final int right, final int bottom) {
+        mPaddingLeft = left;
+        mPaddingTop = top;
+        mPaddingRight = right;
+        mPaddingBottom = bottom;
+        updateBounds();
+    }
+
+    /**
+     * Makes the box exactly as wide as the given number of characters, like TextView.setEms().
+     */
+    public void setEms(final int ems) {
+        mEms = ems;
+        if (mAtlas != null)
+            configureLabelAtlas();
+        updateBounds();
+    }
+
+    /**
+     * Sets a fixed box size in pixels, including the text padding.
+     */
+    public void setFixedSize(final int width, final int height) {
+        mFixedWidth = width;
+        mFixedHeight = height;
+        updateBounds();
+    }
+
+    /**
+     * Returns the height of the box in pixels.
+     */
+    public int getIndicatorHeight() {
+        return mBottom - mTop;
+    }
+
+    /**
+     * Drops every pre-rendered label, e.g. when the ids of the LabelPool they were rendered for become invalid.
+     */
+    public void clearLabelAtlas() {
+        if (mAtlas != null) {
+            mAtlas.clear();
+            mAtlasSlot = -1;
+        }
+    }
+
+    private void onTextMetricsChanged() {
+        mTextPaint.getFontMetricsInt(mFontMetrics);
+        measureText();
+        // the rendered labels use the old metrics, and the slots may need another size
+        if (mAtlas != null) {
+            mAtlas.clear();
+            mAtlasSlot = -1;
+            configureLabelAtlas();
+        }
+        updateBounds();
+    }
+
+    private int getLineHeight() {
+        return mFontMetrics.descent - mFontMetrics.ascent;
+    }
+
+    private int getBoxWidth() {
+        if (mFixedWidth >= 0)
+            return mFixedWidth;
+        final int textWidth = mEms > 0 ? mEms * mTextPaint.getFontMetricsInt(null) : mTextWidth;
+        return textWidth + mPaddingLeft + mPaddingRight;
+    }
+
+    private int getBoxHeight() {
+        if (mFixedHeight >= 0)
+            return mFixedHeight;
+        return mLineCount * getLineHeight() + mPaddingTop + mPaddingBottom;
+    }
+
+    private void updateBounds() {
+        final int boxHeight = getBoxHeight();
+        int top = (int) (mAnchor - boxHeight / 2);
+        if (top > getHeight() - boxHeight)
+            top = getHeight() - boxHeight;
+        if (top < 0)
+            top = 0;
+        final int right = getWidth() - mRightInset;
+        final int left = right - PIN_WIDTH - getBoxWidth();
+        final int bottom = top + boxHeight;
+
+        if (left != mLeft || top != mTop || right != mRight || bottom != mBottom) {
+            invalidate(Math.min(left, mLeft), Math.min(top, mTop), Math.max(right, mRight), Math.max(bottom, mBottom));
+            mLeft = left;
+            mTop = top;
+            mRight = right;
+            mBottom = bottom;
+            mPinPath.reset();
+            mPinPath.moveTo(right - PIN_WIDTH, bottom);
+            mPinPath.lineTo(right, top + boxHeight / 2);
+            mPinPath.lineTo(right - PIN_WIDTH, top);
+            mPinPath.close();
+        } else {
+            invalidate(left, top, right, bottom);
+        }
+    }
+
+    /**
+     * The view spans the whole scrollbar area, so fading it through an offscreen layer would allocate and composite a layer of that size for a small box. While its alpha is below 1, the box, the pin and the label are drawn with that alpha directly instead; the box shows faintly through the label for the duration of a fade.
+     */
+    @Override
+    public boolean hasOverlappingRendering() {
+        return false;
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        updateBounds();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        final int boxRight = mRight - PIN_WIDTH;
+        canvas.drawRect(mLeft, mTop, boxRight, mBottom, mBackgroundPaint);
+        canvas.drawPath(mPinPath, mPinPaint);
+
+        final int innerWidth = boxRight - mLeft - mPaddingLeft - mPaddingRight;
+        final int innerHeight = mBottom - mTop - mPaddingTop - mPaddingBottom;
+        final float x = mLeft + mPaddingLeft + innerWidth / 2f;
+        canvas.save();
+        canvas.clipRect(mLeft, mTop, boxRight, mBottom);
+        if (mAtlasSlot != -1) {
+            // the label is centered within its slot, so centering the slot centers the label
+            mAtlas.getSlotBounds(mAtlasSlot, mAtlasBounds);
+            final int left = Math.round(x - mAtlasBounds.width() / 2f);
+            final int top = mTop + mPaddingTop + (innerHeight - mAtlasBounds.height()) / 2;
+            mAtlasTarget.set(left, top, left + mAtlasBounds.width(), top + mAtlasBounds.height());
+            canvas.drawBitmap(mAtlas.getBitmap(), mAtlasBounds, mAtlasTarget, null);
+        } else {
+            drawLines(canvas, mText, mTextStart, mTextLength, x, mTop + mPaddingTop + (innerHeight - mLineCount * getLineHeight()) / 2);
+        }
+        canvas.restore();
+    }
+}
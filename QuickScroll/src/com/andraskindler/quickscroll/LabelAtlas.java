@@ -0,0 +1,183 @@
+package com.andraskindler.quickscroll;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+
+import java.util.Arrays;
+
+/**
+ * A bitmap holding pre-rendered labels of IndicatorView in a grid of equally sized slots, keyed by LabelPool id.
+ * <p/>
+ * The bitmap is sized to a memory cap and allocated on the first render. When every slot is taken, the least recently used label is evicted; the LRU order is kept in int arrays, so lookups do not allocate.
+ */
+final class LabelAtlas {
+
+    // keeps the bitmap within the texture size limit of hardware accelerated canvases
+    private static final int MAX_DIMENSION = 2048;
+
+    private final int mMaxBytes;
+    private int mSlotWidth, mSlotHeight;
+    private int mColumns, mCapacity;
+    private Bitmap mBitmap;
+    private Canvas mCanvas;
+    // slot of every label id, -1 if not rendered
+    private int[] mSlotForId = new int[0];
+    // label id of every slot, and the LRU list of the used slots
+    private int[] mIdForSlot = new int[0];
+    // measured width and line count of the label of every slot, so a hit needs no text measurement
+    private int[] mWidths = new int[0];
+    private int[] mLineCounts = new int[0];
+    private int[] mPrev = new int[0];
+    private int[] mNext = new int[0];
+    private int mHead = -1, mTail = -1;
+    private int mUsed;
+
+    LabelAtlas(final int maxBytes) {
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * Sets the slot size, dropping every rendered label if it changed.
+     *
+     * @return false if not even one slot fits into the memory cap
+     */
+    boolean configure(final int slotWidth, final int slotHeight) {
+        if (slotWidth == mSlotWidth && slotHeight == mSlotHeight)
+            return mCapacity > 0;
+        mSlotWidth = slotWidth;
+        mSlotHeight = slotHeight;
+        mBitmap = null;
+        mCanvas = null;
+        mColumns = 0;
+        mCapacity = 0;
+        if (slotWidth > 0 && slotHeight > 0 && slotWidth <= MAX_DIMENSION && slotHeight <= MAX_DIMENSION) {
+            final int slots = mMaxBytes / (slotWidth * slotHeight * 4);
+            mColumns = Math.min(MAX_DIMENSION / slotWidth, Math.max(slots, 1));
+            mCapacity = Math.min(slots, mColumns * (MAX_DIMENSION / slotHeight));
+        }
+        mIdForSlot = new int[mCapacity];
+        mWidths = new int[mCapacity];
+        mLineCounts = new int[mCapacity];
+        mPrev = new int[mCapacity];
+        mNext = new int[mCapacity];
+        clear();
+        return mCapacity > 0;
+    }
+
+    /**
+     * Forgets every rendered label, keeping the bitmap for reuse.
+     */
+    void clear() {
+        Arrays.fill(mSlotForId, -1);
+        mHead = -1;
+        mTail = -1;
+        mUsed = 0;
+    }
+
+    boolean fits(final int width, final int height) {
+        return mCapacity > 0 && width <= mSlotWidth && height <= mSlotHeight;
+    }
+
+    boolean isFull() {
+        return mUsed == mCapacity;
+    }
+
+    /**
+     * Returns the slot of the label and marks it as recently used, -1 if it is not rendered.
+     */
+    int getSlot(final int id) {
+        if (id < 0 || id >= mSlotForId.length || mSlotForId[id] == -1)
+            return -1;
+        final int slot = mSlotForId[id];
+        unlink(slot);
+        linkFirst(slot);
+        return slot;
+    }
+
+    /**
+     * Assigns a cleared slot to the label, evicting the least recently used label if all slots are taken, and keeps the measured size of the label with it. The caller renders the label into {@link #getCanvas()} within {@link #getSlotBounds(int, Rect)}.
+     */
+    int allocate(final int id, final int width, final int lineCount) {
+        final int slot;
+        if (mUsed < mCapacity) {
+            slot = mUsed++;
+        } else {
+            slot = mTail;
+            unlink(slot);
+            mSlotForId[mIdForSlot[slot]] = -1;
+        }
+        if (id >= mSlotForId.length) {
+            final int oldLength = mSlotForId.length;
+            mSlotForId = Arrays.copyOf(mSlotForId, Math.max(id + 1, oldLength * 2));
+            Arrays.fill(mSlotForId, oldLength, mSlotForId.length, -1);
+        }
+        mSlotForId[id] = slot;
+        mIdForSlot[slot] = id;
+        mWidths[slot] = width;
+        mLineCounts[slot] = lineCount;
+        linkFirst(slot);
+
+        if (mBitmap == null) {
+            final int rows = (mCapacity + mColumns - 1) / mColumns;
+            mBitmap = Bitmap.createBitmap(mColumns * mSlotWidth, rows * mSlotHeight, Bitmap.Config.ARGB_8888);
+            mCanvas = new Canvas(mBitmap);
+        } else {
+            final int left = (slot % mColumns) * mSlotWidth;
+            final int top = (slot / mColumns) * mSlotHeight;
+            mCanvas.save();
+            mCanvas.clipRect(left, top, left + mSlotWidth, top + mSlotHeight);
+            mCanvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+            mCanvas.restore();
+        }
+        return slot;
+    }
+
+    void getSlotBounds(final int slot, final Rect out) {
+        final int left = (slot % mColumns) * mSlotWidth;
+        final int top = (slot / mColumns) * mSlotHeight;
+        out.set(left, top, left + mSlotWidth, top + mSlotHeight);
+    }
+
+    /**
+     * Returns the width of the widest line of the label in the slot, as measured when it was rendered.
+     */
+    int getWidth(final int slot) {
+        return mWidths[slot];
+    }
+
+    int getLineCount(final int slot) {
+        return mLineCounts[slot];
+    }
+
+    Canvas getCanvas() {
+        return mCanvas;
+    }
+
+    Bitmap getBitmap() {
+        return mBitmap;
+    }
+
+    private void unlink(final int slot) {
+        if (mPrev[slot] != -1)
+            mNext[mPrev[slot]] = mNext[slot];
+        else
+            mHead = mNext[slot];
+        if (mNext[slot] != -1)
+            mPrev[mNext[slot]] = mPrev[slot];
+        else
+            mTail = mPrev[slot];
+    }
+
+    private void linkFirst(final int slot) {
+        mPrev[slot] = -1;
+        mNext[slot] = mHead;
+        if (mHead != -1)
+            mPrev[mHead] = slot;
+        mHead = slot;
+        if (mTail == -1)
+            mTail = slot;
+    }
+}
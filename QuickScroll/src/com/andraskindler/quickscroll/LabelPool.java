@@ -0,0 +1,84 @@
+package com.andraskindler.quickscroll;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Interned indicator labels, referenced by int ids. The characters of all labels are packed into one char array, which QuickScroll hands to the views as a range instead of a String.
+ * <p/>
+ * Interning a label that is already in the pool does not allocate. Characters are only ever appended, and {@link #clear()} starts over with a new array, so an array returned by {@link #getChars()} keeps the labels it held unchanged while a view is still showing them.
+ */
+public final class LabelPool {
+
+    private char[] mChars = new char[256];
+    private int mCharCount;
+    private int[] mStarts = new int[16];
+    private int[] mLengths = new int[16];
+    private int mCount;
+    private HashMap<String, Integer> mIds = new HashMap<String, Integer>();
+
+    /**
+     * Returns the id of the given label, adding it to the pool if needed. Null is interned as the empty label.
+     */
+    public int intern(final String label) {
+        final String key = label == null ? "" : label;
+        final Integer id = mIds.get(key);
+        if (id != null)
+            return id;
+
+        final int length = key.length();
+        if (mCharCount + length > mChars.length)
+            mChars = Arrays.copyOf(mChars, Math.max(mCharCount + length, mChars.length * 2));
+        key.getChars(0, length, mChars, mCharCount);
+        if (mCount == mStarts.length) {
+            mStarts = Arrays.copyOf(mStarts, mCount * 2);
+            mLengths = Arrays.copyOf(mLengths, mCount * 2);
+        }
+        mStarts[mCount] = mCharCount;
+        mLengths[mCount] = length;
+        mCharCount += length;
+        mIds.put(key, mCount);
+        return mCount++;
+    }
+
+    /**
+     * Returns the array holding the characters of every label, see {@link #getStart(int)} and {@link #getLength(int)}.
+     */
+    public char[] getChars() {
+        return mChars;
+    }
+
+    public int getStart(final int id) {
+        return mStarts[id];
+    }
+
+    public int getLength(final int id) {
+        return mLengths[id];
+    }
+
+    /**
+     * Returns the label of the given id as a new String.
+     */
+    public String getLabel(final int id) {
+        return new String(mChars, mStarts[id], mLengths[id]);
+    }
+
+    /**
+     * Returns the number of labels in the pool.
+     */
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * Removes every label. Previously returned ids become invalid; previously returned arrays are left untouched.
+     */
+    public void clear() {
+        mChars = new char[256];
+        mCharCount = 0;
+        mStarts = new int[16];
+        mLengths = new int[16];
+        mCount = 0;
+        mIds = new HashMap<String, Integer>();
+    }
+}
@@ -0,0 +1,182 @@
+package com.andraskindler.quickscroll;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Sections of a list sorted by a number, e.g. a year, a price or a distance. The buckets and their labels are computed up front from the key column, so indicator lookups are a binary search over the bucket starts and never format a label.
+ * <p/>
+ * Buckets are either fixed-width ranges of the key, or quantiles holding a similar number of positions each, so every bucket gets a similar share of the scrollbar. Keys are compared as doubles, so long keys beyond 2^53 lose precision.
+ * Adapters can delegate their {@link Scrollable} methods to it, or pass {@link #toSectionIndex()} to QuickScroll.
+ */
+public final class NumericSectionIndexer extends PrecomputedSections {
+
+    /**
+     * Formats the label of a bucket; called once per bucket.
+     */
+    public interface LabelFormatter {
+
+        /**
+         * @param from the lower bound of a fixed-width bucket, or the lowest key of a quantile bucket
+         * @param to   the exclusive upper bound of a fixed-width bucket, or the highest key of a quantile bucket
+         */
+        String format(double from, double to);
+    }
+
+    /**
+     * Formats "from&ndash;to" with an en dash, so negative ranges stay readable, e.g. "-20&ndash;-10". Bounds are rounded to 12 significant digits, so a bucket of width 0.1 reads "0.3&ndash;0.4".
+     */
+    public static final LabelFormatter RANGE_FORMATTER = new LabelFormatter() {
+        public String format(final double from, final double to) {
+            return formatNumber(from) + "\u2013" + formatNumber(to);
+        }
+    };
+
+    // significant digits of the bounds formatted by RANGE_FORMATTER
+    private static final MathContext LABEL_PRECISION = new MathContext(12);
+    // tolerance of the bucket index, so a key on a bucket bound is not put into the previous bucket by a rounding error
+    private static final double BUCKET_EPSILON = 1e-9;
+
+    /**
+     * Read access to a sorted key column of any primitive type.
+     */
+    private interface Keys {
+        int size();
+
+        double get(int position);
+    }
+
+    private NumericSectionIndexer(final SectionIndex index) {
+        super(index);
+    }
+
+    /**
+     * Buckets the keys into ranges of the given width, aligned to multiples of it: a width of 10 puts 1998 into 1990&ndash;2000. Empty ranges get no section. Buckets are numbered by floor(key / width) and their bounds derived from that number.
+     * <p/>
+     *
+     * @param keys      the key of every position, ascending
+     * @param width     the width of a bucket, positive
+     * @param formatter formats the label of every bucket, see {@link #RANGE_FORMATTER}
+     */
+    public static NumericSectionIndexer fixedWidth(final int[] keys, final double width, final LabelFormatter formatter) {
+        return fixedWidth(wrap(keys), width, formatter);
+    }
+
+    /**
+     * See {@link #fixedWidth(int[], double, LabelFormatter)}.
+     */
+    public static NumericSectionIndexer fixedWidth(final long[] keys, final double width, final LabelFormatter formatter) {
+        return fixedWidth(wrap(keys), width, formatter);
+    }
+
+    /**
+     * See {@link #fixedWidth(int[], double, LabelFormatter)}.
+     */
+    public static NumericSectionIndexer fixedWidth(final double[] keys, final double width, final LabelFormatter formatter) {
+        return fixedWidth(wrap(keys), width, formatter);
+    }
+
+    /**
+     * Buckets the keys into the given number of quantiles, each holding about the same number of positions. Equal keys are never split between buckets, so there may be fewer sections than requested.
+     * <p/>
+     *
+     * @param keys      the key of every position, ascending
+     * @param buckets   the number of buckets, positive
+     * @param formatter formats the label of every bucket, see {@link #RANGE_FORMATTER}
+     */
+    public static NumericSectionIndexer quantiles(final int[] keys, final int buckets, final LabelFormatter formatter) {
+        return quantiles(wrap(keys), buckets, formatter);
+    }
+
+    /**
+     * See {@link #quantiles(int[], int, LabelFormatter)}.
+     */
+    public static NumericSectionIndexer quantiles(final long[] keys, final int buckets, final LabelFormatter formatter) {
+        return quantiles(wrap(keys), buckets, formatter);
+    }
+
+    /**
+     * See {@link #quantiles(int[], int, LabelFormatter)}.
+     */
+    public static NumericSectionIndexer quantiles(final double[] keys, final int buckets, final LabelFormatter formatter) {
+        return quantiles(wrap(keys), buckets, formatter);
+    }
+
+    private static NumericSectionIndexer fixedWidth(final Keys keys, final double width, final LabelFormatter formatter) {
+        if (!(width > 0))
+            throw new IllegalArgumentException("width must be positive: " + width);
+        final int count = keys.size();
+        final SectionIndex.Sections sections = new SectionIndex.Sections();
+        long last = 0;
+        for (int position = 0; position < count; position++) {
+            final long bucket = (long) Math.floor(keys.get(position) / width + BUCKET_EPSILON);
+            if (position > 0 && bucket == last)
+                continue;
+            last = bucket;
+            sections.add(position, formatter.format(bucket * width, (bucket + 1) * width));
+        }
+        return new NumericSectionIndexer(sections.build(count));
+    }
+
+    private static NumericSectionIndexer quantiles(final Keys keys, final int buckets, final LabelFormatter formatter) {
+        if (buckets <= 0)
+            throw new IllegalArgumentException("buckets must be positive: " + buckets);
+        final int count = keys.size();
+        final SectionIndex.Sections sections = new SectionIndex.Sections();
+        int start = 0;
+        for (int bucket = 1; bucket <= buckets && start < count; bucket++) {
+            int end = bucket == buckets ? count : Math.max(start + 1, (int) ((long) count * bucket / buckets));
+            // moves the boundary past a run of equal keys
+            final double last = keys.get(end - 1);
+            while (end < count && keys.get(end) == last)
+                end++;
+            sections.add(start, formatter.format(keys.get(start), last));
+            start = end;
+        }
+        return new NumericSectionIndexer(sections.build(count));
+    }
+
+    private static Keys wrap(final int[] keys) {
+        return new Keys() {
+            public int size() {
+                return keys.length;
+            }
+
+            public double get(final int position) {
+                return keys[position];
+            }
+        };
+    }
+
+    private static Keys wrap(final long[] keys) {
+        return new Keys() {
+            public int size() {
+                return keys.length;
+            }
+
+            public double get(final int position) {
+                return keys[position];
+            }
+        };
+    }
+
+    private static Keys wrap(final double[] keys) {
+        return new Keys() {
+            public int size() {
+                return keys.length;
+            }
+
+            public double get(final int position) {
+                return keys[position];
+            }
+        };
+    }
+
+    private static String formatNumber(final double number) {
+        if (Double.isNaN(number) || Double.isInfinite(number))
+            return Double.toString(number);
+        if (number == 0)
+            return "0";
+        return new BigDecimal(number).round(LABEL_PRECISION).stripTrailingZeros().toPlainString();
+    }
+}
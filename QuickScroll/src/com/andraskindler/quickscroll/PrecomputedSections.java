@@ -0,0 +1,48 @@
+package com.andraskindler.quickscroll;
+
+/**
+ * Base of the indexers that compute their sections up front from a sorted key column. The sections are kept in a {@link SectionIndex}, so lookups are binary searches over the section starts and never format a label.
+ */
+abstract class PrecomputedSections implements Scrollable {
+
+    private final SectionIndex mIndex;
+
+    PrecomputedSections(final SectionIndex index) {
+        mIndex = index;
+    }
+
+    public int getSectionCount() {
+        return mIndex.getSectionCount();
+    }
+
+    /**
+     * Returns the section containing the given position, -1 if there are no positions.
+     */
+    public int getSectionForPosition(final int position) {
+        return mIndex.getSectionForPosition(position);
+    }
+
+    public int getPositionForSection(final int section) {
+        return mIndex.getPositionForSection(section);
+    }
+
+    public String getLabel(final int section) {
+        return mIndex.getLabel(section);
+    }
+
+    /**
+     * Returns the sections as a SectionIndex for QuickScroll, without querying any position.
+     */
+    public SectionIndex toSectionIndex() {
+        return mIndex;
+    }
+
+    public String getIndicatorForPosition(final int childposition, final int groupposition) {
+        final int section = mIndex.getSectionForPosition(childposition);
+        return section == -1 ? null : mIndex.getLabel(section);
+    }
+
+    public int getScrollPosition(final int childposition, final int groupposition) {
+        return childposition;
+    }
+}
@@ -1,38 +1,42 @@
 package com.andraskindler.quickscroll;
 
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
 import android.annotation.SuppressLint;
+import android.annotation.TargetApi;
 import android.content.Context;
+import android.database.DataSetObserver;
+import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Paint;
 import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
 import android.graphics.drawable.GradientDrawable;
 import android.graphics.drawable.StateListDrawable;
 import android.os.Build;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.text.TextPaint;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
-import android.util.Log;
 import android.util.TypedValue;
 import android.view.Gravity;
+import android.view.Choreographer;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.ViewGroup.LayoutParams;
-import android.view.ViewParent;
-import android.view.animation.AlphaAnimation;
-import android.view.animation.Animation;
-import android.view.animation.Animation.AnimationListener;
-import android.view.animation.TranslateAnimation;
 import android.view.inputmethod.InputMethodManager;
 import android.widget.*;
 import android.widget.AbsListView.OnScrollListener;
 
-import java.util.HashMap;
+import java.util.Arrays;
 
 import se.emilsjolander.stickylistheaders.StickyListHeadersListView;
 
 public class QuickScroll extends View {
 
-    // IDs
-    protected static final int ID_PIN = 512;
-    protected static final int ID_PIN_TEXT = 513;
     // type statics
     public static final int TYPE_POPUP = 0;
     public static final int TYPE_INDICATOR = 1;
@@ -54,30 +58,167 @@ public class QuickScroll extends View {
     public static final int MARKER_HEIGHT = 3;
     // base variables
     private boolean mScrolling;
-    private AlphaAnimation mFadeIn, mFadeOut;
+    private FadeListener mFadeIn, mFadeOut;
     private TextView mScrollIndicatorText;
+    private IndicatorHandler mIndicatorHandler;
+    private HandlebarHandler mHandlebarHandler = NO_HANDLEBAR;
     private Scrollable mScrollable;
     private ListView mList;
-    private View mScrollbar;
     private SectionIndexer mSectionIndexer=null;
+    // first position of every section of the SectionIndexer, null without one
+    private int[] mSectionPositions=null;
+    private SectionIndex mSectionIndex=null;
+    private RowHeightIndex mRowHeights=null;
+    private SectionIndexBuilder mIndexBuilder;
+    private boolean mBuildIndexInBackground = false;
+    private boolean mSortedLabels = false;
+    // adapter observation
+    private Object mObservedAdapter;
+    // the adapter observed when the view was detached, and whether an index build was interrupted by it
+    private Object mDetachedAdapter;
+    private boolean mResumeIndexBuild;
+    // number of items the next change is declared to append, see notifyItemsAppended()
+    private int mExpectedAppend;
+    // appends up to this many items are indexed on the main thread even when building in the background
+    private static final int SYNC_APPEND_LIMIT = 4096;
+    // re-observes the adapter after it was replaced, posted from onDraw() so the draw pass does not sync
+    private final Runnable mObserveRunnable = new Runnable() {
+        public void run() {
+            if (mInitialized && getListAdapter() != mObservedAdapter)
+                observeAdapter(false);
+        }
+    };
+    private final DataSetObserver mDataSetObserver = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            onListDataChanged(consumeExpectedAppend());
+        }
+
+        @Override
+        public void onInvalidated() {
+            mExpectedAppend = 0;
+            onListDataChanged(false);
+        }
+    };
+    private RecyclerView.AdapterDataObserver mAdapterDataObserver;
+    private RecyclerView.OnScrollListener mRecyclerScrollListener;
+    // recyclerview-v7 is a provided dependency, only present in apps that use it; its classes must not be touched without it
+    private static final boolean HAS_RECYCLER_VIEW = hasClass("android.support.v7.widget.RecyclerView");
+    // expandable lists: the flat size of every group, its row plus its children if expanded; null until needed or after a data change
+    private RowHeightIndex mGroupSizes;
+    private ExpandableListAdapter mObservedGroupAdapter;
+    private final DataSetObserver mGroupDataObserver = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            mGroupSizes = null;
+        }
+
+        @Override
+        public void onInvalidated() {
+            mGroupSizes = null;
+        }
+    };
     private int mGroupPosition;
     private int mItemCount;
     private long mFadeDuration = 150;
     private int mType;
     private boolean mInitialized = false;
     private static final int TEXT_PADDING = 4;
-    // handlebar variables
-    private View mHandlebar;
+    // scrollbar variables, drawn in onDraw(); the paint is null with STYLE_NONE
+    private Paint mTrackPaint;
+    // handlebar variables, the drawable is null if there is no handlebar
+    private static final int[] STATE_ACTIVE = {android.R.attr.state_selected, android.R.attr.state_enabled};
+    private static final int[] STATE_INACTIVE = {android.R.attr.state_enabled};
+    private Drawable mHandlebar;
+    private int mHandlebarWidth, mHandlebarHeight;
+    private int mHandlebarTop = SCROLLBAR_MARGIN;
     // indicator variables
-    private RelativeLayout mScrollIndicator;
+    private IndicatorView mScrollIndicator;
     private StickyListHeadersListView mStickyHeaders=null;
+    private RecyclerView mRecyclerView=null;
     protected float lastHeight;
+    // change detection
+    // labels shown by the indicator, pushed to it as char ranges; cleared when it outgrows MAX_POOLED_LABELS
+    private static final int MAX_POOLED_LABELS = 4096;
+    private final LabelPool mLabelPool = new LabelPool();
+    // resolves every move of a drag to its label and list position, skipping the updates that would not change anything
+    private final DragResolver mDragResolver = new DragResolver(mLabelPool);
+    // popup size locking, see lockPopupSize()
+    private static final int MAX_MEASURED_LABELS = 4096;
+    private boolean mPopupSizeSet = false;
+    // label atlas warming, a few labels per idle pass of the main thread, see setLabelAtlasSize()
+    private static final int WARMUP_BATCH = 8;
+    private boolean mWarmupScheduled = false;
+    private int mWarmupNext;
+    // labels shown while dragging that were not in the atlas, rendered once the drag ended
+    private static final int MAX_ATLAS_MISSES = 64;
+    private final int[] mAtlasMisses = new int[MAX_ATLAS_MISSES];
+    private int mAtlasMissCount;
+    private final MessageQueue.IdleHandler mWarmupHandler = new MessageQueue.IdleHandler() {
+        public boolean queueIdle() {
+            // an idle handler only runs again once another message arrived, so the next batch posts one
+            if (warmLabelAtlas())
+                post(mWarmupRepost);
+            else
+                mWarmupScheduled = false;
+            return false;
+        }
+    };
+    private final Runnable mWarmupRepost = new Runnable() {
+        public void run() {
+            Looper.myQueue().addIdleHandler(mWarmupHandler);
+        }
+    };
+    private long mSuppressedUpdates;
+    // frame coalescing
+    private boolean mFrameCoalescing = false;
+    private boolean mFramePending = false;
+    private float mPendingHeight;
+    private double mPendingFraction;
+    private Object mFrameCallback;
+    private final Runnable mFrameRunnable = new Runnable() {
+        public void run() {
+            applyPendingScroll();
+        }
+    };
+
+    // handlebar throttling
+    private boolean mHandlebarThrottling = false;
+    private boolean mHandlebarPending = false;
+    private final Runnable mHandlebarRunnable = new Runnable() {
+        public void run() {
+            updateHandlebar();
+        }
+    };
+    // precision scrubbing: every level divides the rows per pixel by PRECISION_RATIO, see setPrecisionScrubbing()
+    private static final int PRECISION_RATIO = 16;
+    // finger speeds in dp per millisecond, and the time the finger has to stay slow to refine by one level
+    private static final float PRECISION_SLOW_SPEED = 0.05f;
+    private static final float PRECISION_FAST_SPEED = 1f;
+    private static final int PRECISION_HOLD = 300;
+    // distance in dp the finger moves sideways, away from the scrollbar, to refine by one level
+    private static final int PRECISION_STEP = 48;
+    private boolean mPrecisionScrubbing = false;
+    private int mPrecisionLevel, mPrecisionMaxLevel, mHoldLevel;
+    private double mPrecisionScale = 1;
+    private double mAnchorFraction;
+    private float mAnchorY, mDownX, mLastMoveY;
+    private long mLastMoveTime, mSlowSince;
+    private double mLastFraction;
+    // sticky list jumps
+    private static final int SETTLE_DURATION = 120;
+    private int mSettlePosition;
+    private final Runnable mSettleRunnable = new Runnable() {
+        public void run() {
+            mStickyHeaders.smoothScrollToPositionFromTop(mSettlePosition, 0, SETTLE_DURATION);
+        }
+    };
 
     private RelativeLayout container;
-    private RelativeLayout layout;
-    private HashMap<Integer, View> markers;
-    // animations
-    private TranslateAnimation mMoveCompatAnim;
+    // markers, sorted ascending without duplicates
+    private int[] mMarkers = new int[0];
+    private int mMarkerCount;
+    private Paint mMarkerPaint;
 
     // default constructors
     public QuickScroll(Context context) {
@@ -101,51 +242,72 @@ public class QuickScroll extends View {
      * @param scrollable the adapter, must implement Scrollable interface
      */
     public void init(final int type, final ListView list, final Scrollable scrollable, final int style) {
+        init(type, list, scrollable, style, null);
+    }
+
+    /**
+     * Initializing the QuickScroll with a precomputed section index. While dragging, the indicator text and the target position are read from the index instead of the Scrollable.
+     * <p/>
+     *
+     * @param type       the QuickScroll type. Available inputs: <b>QuickScroll.TYPE_POPUP</b> or <b>QuickScroll.TYPE_INDICATOR</b>
+     * @param list       the ListView
+     * @param scrollable the adapter, must implement Scrollable interface
+     * @param index      the index built from the adapter, see {@link SectionIndex#build(Scrollable, int)}; may be null
+     */
+    public void init(final int type, final ListView list, final Scrollable scrollable, final int style, final SectionIndex index) {
+        if (mInitialized) return;
+        initInternal(type, list, scrollable, style, index);
+    }
+
+    /**
+     * Initializing the QuickScroll for a RecyclerView. Dragging jumps with LinearLayoutManager.scrollToPositionWithOffset(), the handlebar follows the RecyclerView's computed scroll offset.
+     * <p/>
+     *
+     * @param type       the QuickScroll type. Available inputs: <b>QuickScroll.TYPE_POPUP</b> or <b>QuickScroll.TYPE_INDICATOR</b>
+     * @param list       the RecyclerView
+     * @param scrollable the adapter, must implement Scrollable interface
+     */
+    public void init(final int type, final RecyclerView list, final Scrollable scrollable, final int style) {
+        init(type, list, scrollable, style, null);
+    }
+
+    /**
+     * Initializing the QuickScroll for a RecyclerView with a precomputed section index.
+     * <p/>
+     *
+     * @param type       the QuickScroll type. Available inputs: <b>QuickScroll.TYPE_POPUP</b> or <b>QuickScroll.TYPE_INDICATOR</b>
+     * @param list       the RecyclerView
+     * @param scrollable the adapter, must implement Scrollable interface
+     * @param index      the index built from the adapter, see {@link SectionIndex#build(Scrollable, int)}; may be null
+     */
+    public void init(final int type, final RecyclerView list, final Scrollable scrollable, final int style, final SectionIndex index) {
         if (mInitialized) return;
+        mRecyclerView = list;
+        initInternal(type, null, scrollable, style, index);
+    }
+
+    private void initInternal(final int type, final ListView list, final Scrollable scrollable, final int style, final SectionIndex index) {
 
         mType = type;
         mList = list;
         mScrollable = scrollable;
+        setSectionIndex(index);
         mGroupPosition = -1;
-        mFadeIn = new AlphaAnimation(.0f, 1.0f);
-        mFadeIn.setFillAfter(true);
-        mFadeOut = new AlphaAnimation(1.0f, .0f);
-        mFadeOut.setFillAfter(true);
-        mFadeOut.setAnimationListener(new AnimationListener() {
-
-            public void onAnimationStart(Animation animation) {
-            }
-
-            public void onAnimationRepeat(Animation animation) {
-            }
-
-            public void onAnimationEnd(Animation animation) {
-                mScrolling = false;
+        mScrolling = false;
+        getListView().setOnTouchListener(new OnTouchListener() {
+            public boolean onTouch(View v, MotionEvent event) {
+                return mScrolling && (event.getAction() == MotionEvent.ACTION_MOVE || event.getAction() == MotionEvent.ACTION_DOWN);
             }
         });
-        mScrolling = false;
-        if (mStickyHeaders!=null) {
-            mStickyHeaders.setOnTouchListener(new OnTouchListener() {
-                public boolean onTouch(View v, MotionEvent event) {
-                    return mScrolling && (event.getAction() == MotionEvent.ACTION_MOVE || event.getAction() == MotionEvent.ACTION_DOWN);
-                }
-            });
-        }else {
-            mList.setOnTouchListener(new OnTouchListener() {
-                public boolean onTouch(View v, MotionEvent event) {
-                    return mScrolling && (event.getAction() == MotionEvent.ACTION_MOVE || event.getAction() == MotionEvent.ACTION_DOWN);
-                }
-            });
-        }
 
         final RelativeLayout.LayoutParams containerParams = new RelativeLayout.LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
-        container = new RelativeLayout(getContext());
-        container.setBackgroundColor(Color.TRANSPARENT);
         containerParams.addRule(RelativeLayout.ALIGN_TOP, getId());
         containerParams.addRule(RelativeLayout.ALIGN_BOTTOM, getId());
-        container.setLayoutParams(containerParams);
 
         if (mType == TYPE_POPUP || mType == TYPE_POPUP_WITH_HANDLE) {
+            // the popup is centered over the scrollbar's span, which needs a wrapping layout
+            container = new RelativeLayout(getContext());
+            container.setLayoutParams(containerParams);
             mScrollIndicatorText = new TextView(getContext());
             mScrollIndicatorText.setTextColor(Color.WHITE);
             mScrollIndicatorText.setVisibility(View.INVISIBLE);
@@ -157,52 +319,52 @@ public class QuickScroll extends View {
             setTextPadding(TEXT_PADDING, TEXT_PADDING, TEXT_PADDING, TEXT_PADDING);
             container.addView(mScrollIndicatorText);
         } else if (mType == TYPE_INDICATOR || mType == TYPE_INDICATOR_WITH_HANDLE) {
-            mScrollIndicator = createPin();
-            mScrollIndicatorText = (TextView) mScrollIndicator.findViewById(ID_PIN_TEXT);
-            (mScrollIndicator.findViewById(ID_PIN)).getLayoutParams().width = 25;
-            container.addView(mScrollIndicator);
+            // the indicator spans the scrollbar's height itself and draws the box around its anchor
+            mScrollIndicator = new IndicatorView(getContext());
+            mScrollIndicator.setLayoutParams(containerParams);
+            mScrollIndicator.setVisibility(View.INVISIBLE);
         }
 
         // setting scrollbar width
         final float density = getResources().getDisplayMetrics().density;
         getLayoutParams().width = (int) (30 * density);
-        mScrollIndicatorText.setTextSize(TypedValue.COMPLEX_UNIT_DIP, 32);
+        setTextSize(TypedValue.COMPLEX_UNIT_DIP, 32);
 
-        // scrollbar setup
+        // scrollbar setup, the track and the handlebar are drawn in onDraw()
         if (style != STYLE_NONE) {
-            layout = new RelativeLayout(getContext());
-            final RelativeLayout.LayoutParams params = new RelativeLayout.LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
-            params.addRule(RelativeLayout.ALIGN_LEFT, getId());
-            params.addRule(RelativeLayout.ALIGN_TOP, getId());
-            params.addRule(RelativeLayout.ALIGN_RIGHT, getId());
-            params.addRule(RelativeLayout.ALIGN_BOTTOM, getId());
-            layout.setLayoutParams(params);
-
-            mScrollbar = new View(getContext());
-            mScrollbar.setBackgroundColor(GREY_SCROLLBAR);
-            final RelativeLayout.LayoutParams scrollbarparams = new RelativeLayout.LayoutParams(1, LayoutParams.MATCH_PARENT);
-            scrollbarparams.addRule(RelativeLayout.CENTER_HORIZONTAL);
-            scrollbarparams.topMargin = SCROLLBAR_MARGIN;
-            scrollbarparams.bottomMargin = SCROLLBAR_MARGIN;
-            mScrollbar.setLayoutParams(scrollbarparams);
-            layout.addView(mScrollbar);
-            if (mStickyHeaders!=null) {
-                ((ViewGroup) mStickyHeaders.getParent()).addView(layout);
-            }else {
-                ((ViewGroup) mList.getParent()).addView(layout);
-
-            }
+            mTrackPaint = new Paint();
+            mTrackPaint.setColor(GREY_SCROLLBAR);
             // creating the handlebar
             if (mType == TYPE_INDICATOR_WITH_HANDLE || mType == TYPE_POPUP_WITH_HANDLE) {
-                mHandlebar = new View(getContext());
-                setHandlebarColor(BLUE_LIGHT, BLUE_LIGHT, BLUE_LIGHT_SEMITRANSPARENT);
-                final RelativeLayout.LayoutParams handleparams = new RelativeLayout.LayoutParams((int) (12 * density), (int) (36 * density));
-                mHandlebar.setLayoutParams(handleparams);
-                ((RelativeLayout.LayoutParams) mHandlebar.getLayoutParams()).addRule(RelativeLayout.CENTER_HORIZONTAL);
-                layout.addView(mHandlebar);
+                mHandlebarWidth = (int) (12 * density);
+                mHandlebarHeight = (int) (36 * density);
+                mHandlebar = createHandlebarDrawable(BLUE_LIGHT, BLUE_LIGHT, BLUE_LIGHT_SEMITRANSPARENT);
+                mHandlebar.setState(STATE_INACTIVE);
             }
         }
-        if (mStickyHeaders!=null) {
+        if (mRecyclerView!=null) {
+            if (mRecyclerScrollListener == null) {
+                mRecyclerScrollListener = new RecyclerView.OnScrollListener() {
+
+                    @Override
+                    public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+                        if (newState == RecyclerView.SCROLL_STATE_DRAGGING) {
+                            // Hide the keyboard
+                            InputMethodManager imm = (InputMethodManager) recyclerView.getContext().getSystemService(Context.INPUT_METHOD_SERVICE);
+                            imm.hideSoftInputFromWindow(recyclerView.getWindowToken(), 0);
+                        }
+                    }
+
+                    @Override
+                    public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                        requestHandlebarUpdate();
+                    }
+                };
+            }
+            // the listener is added rather than set, so the app's own scroll listeners keep working
+            mRecyclerView.removeOnScrollListener(mRecyclerScrollListener);
+            mRecyclerView.addOnScrollListener(mRecyclerScrollListener);
+        }else if (mStickyHeaders!=null) {
             mStickyHeaders.setOnScrollListener(new OnScrollListener() {
 
                 public void onScrollStateChanged(AbsListView view, int scrollState) {
@@ -213,15 +375,8 @@ public class QuickScroll extends View {
                     }
                 }
 
-                @SuppressLint("NewApi")
                 public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
-                    try {
-                        if (!mScrolling && totalItemCount - visibleItemCount > 0) {
-                            moveHandlebar(getHeight() * firstVisibleItem / (totalItemCount - visibleItemCount));
-                        }
-                    } catch (Exception ignored) {
-
-                    }
+                    requestHandlebarUpdate();
                 }
             });
         }else {
@@ -235,212 +390,902 @@ public class QuickScroll extends View {
                     }
                 }
 
-                @SuppressLint("NewApi")
                 public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
-                    try {
-                        if (!mScrolling && totalItemCount - visibleItemCount > 0) {
-                            moveHandlebar(getHeight() * firstVisibleItem / (totalItemCount - visibleItemCount));
-                        }
-                    } catch (Exception ignored) {
-
-                    }
+                    requestHandlebarUpdate();
                 }
             });
         }
-        markers = new HashMap<Integer, View>();
-
+        if (mList instanceof ExpandableListView)
+            trackGroupExpansion((ExpandableListView) mList);
+        final View indicator = mScrollIndicator != null ? mScrollIndicator : mScrollIndicatorText;
+        indicator.setAlpha(0);
+        mFadeIn = new FadeListener(indicator, true);
+        mFadeOut = new FadeListener(indicator, false);
+        mIndicatorHandler = mScrollIndicator != null ? new PinHandler() : new PopupHandler();
+        if (mHandlebar != null)
+            mHandlebarHandler = new ViewHandlebarHandler();
         mInitialized = true;
+        lockPopupSize();
+        scheduleLabelAtlasWarmup();
 
-        if (mStickyHeaders!=null) {
-            ((ViewGroup) mStickyHeaders.getParent()).addView(container);
-        }else {
-            ((ViewGroup) mList.getParent()).addView(container);
+        ((ViewGroup) getListView().getParent()).addView(container != null ? container : mScrollIndicator);
+        observeAdapter(true);
+    }
+
+    /**
+     * Moves the handlebar after the list scrolled, right away or on the next frame if handlebar throttling is turned on. Nothing is computed while dragging or if there is no handlebar.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void requestHandlebarUpdate() {
+        if (mScrolling || mHandlebar == null)
+            return;
+        if (!mHandlebarThrottling) {
+            updateHandlebar();
+            return;
         }
+        if (mHandlebarPending)
+            return;
+        mHandlebarPending = true;
+        if (android.os.Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN)
+            postOnAnimation(mHandlebarRunnable);
+        else
+            post(mHandlebarRunnable);
     }
 
-    @Override
-    public boolean onTouchEvent(MotionEvent event) {
-        Adapter adapter = mStickyHeaders!=null ? mStickyHeaders.getAdapter() : mList.getAdapter();
-        if (adapter == null)
-            return false;
+    /**
+     * Moves the handlebar to match the current scroll state of the list; moveHandlebar() returns early if the pixel did not change.
+     */
+    private void updateHandlebar() {
+        mHandlebarPending = false;
+        if (mScrolling || mHandlebar == null)
+            return;
+        if (mRecyclerView!=null) {
+            final int range = mRecyclerView.computeVerticalScrollRange() - mRecyclerView.computeVerticalScrollExtent();
+            if (range > 0)
+                moveHandlebar((float) getHeight() * mRecyclerView.computeVerticalScrollOffset() / range);
+            return;
+        }
+        final AbsListView view = mStickyHeaders!=null ? mStickyHeaders.getWrappedList() : mList;
+        final int visibleItemCount = view.getChildCount();
+        final int totalItemCount = view.getCount();
+        if (totalItemCount - visibleItemCount > 0)
+            moveHandlebar(getHandlebarPosition(view, view.getFirstVisiblePosition(), visibleItemCount, totalItemCount));
+    }
 
-        if (adapter instanceof HeaderViewListAdapter) {
-            adapter = ((HeaderViewListAdapter) adapter).getWrappedAdapter();
+    /**
+     * Caps handlebar updates caused by list scrolling to once per frame, instead of once per scroll callback. Useful on low-end devices, where a fling can report several scrolls per frame. Off by default.
+     * <p/>
+     *
+     * @param enabled true to move the handlebar at most once per frame
+     */
+    public void setHandlebarThrottling(final boolean enabled) {
+        mHandlebarThrottling = enabled;
+        if (!enabled && mHandlebarPending) {
+            removeCallbacks(mHandlebarRunnable);
+            updateHandlebar();
         }
+    }
+
+    /**
+     * Returns where the handlebar should be for the given scroll state. Without a row height index every row counts as equally high; with one, the visible rows are measured into the index first and the position follows the pixel offset of the list.
+     */
+    private float getHandlebarPosition(final AbsListView view, final int firstVisibleItem, final int visibleItemCount, final int totalItemCount) {
+        if (mRowHeights == null || mRowHeights.size() != totalItemCount || view.getChildCount() == 0)
+            return (float) ((double) getHeight() * firstVisibleItem / (totalItemCount - visibleItemCount));
+
+        for (int i = 0; i < view.getChildCount(); i++)
+            mRowHeights.setHeight(firstVisibleItem + i, view.getChildAt(i).getHeight());
+        final long range = mRowHeights.getTotalHeight() - view.getHeight();
+        if (range <= 0)
+            return 0;
+        final long offset = mRowHeights.getOffset(firstVisibleItem) - view.getChildAt(0).getTop();
+        return (float) getHeight() * offset / range;
+    }
+
+    /**
+     * Returns the view QuickScroll is bound to: the StickyListHeadersListView, the RecyclerView or the ListView.
+     */
+    private View getListView() {
+        if (mStickyHeaders!=null)
+            return mStickyHeaders;
+        if (mRecyclerView!=null)
+            return mRecyclerView;
+        return mList;
+    }
+
+    /**
+     * Returns the adapter of the bound list, null if there is none.
+     */
+    private Object getListAdapter() {
+        if (mRecyclerView!=null)
+            return mRecyclerView.getAdapter();
+        return mStickyHeaders!=null ? mStickyHeaders.getAdapter() : mList.getAdapter();
+    }
+
+    /**
+     * Returns the item count of the bound adapter, zero if there is none. The count is cached and kept up to date by observing the adapter.
+     */
+    private int getListItemCount() {
+        if (getListAdapter() != mObservedAdapter)
+            observeAdapter(false);
+        return mItemCount;
+    }
+
+    private int queryListItemCount() {
+        final Object adapter = getListAdapter();
+        if (HAS_RECYCLER_VIEW && adapter instanceof RecyclerView.Adapter)
+            return ((RecyclerView.Adapter) adapter).getItemCount();
+        return adapter == null ? 0 : ((Adapter) adapter).getCount();
+    }
 
-        mItemCount = mStickyHeaders!=null ? mStickyHeaders.getAdapter().getCount() : mList.getAdapter().getCount();
-        if (mItemCount == 0)
+    private static boolean hasClass(final String name) {
+        try {
+            Class.forName(name, false, QuickScroll.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
             return false;
-        if (mScrolling && event.getAction() == MotionEvent.ACTION_CANCEL) {
-            if (mType == TYPE_POPUP || mType == TYPE_POPUP_WITH_HANDLE) {
-                if (android.os.Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
-                    mScrolling = false;
-                    mScrollIndicatorText.setVisibility(View.GONE);
-                } else
-                    mScrollIndicatorText.startAnimation(mFadeOut);
-            } else {
-                if (android.os.Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
-                    mScrolling = false;
-                    mScrollIndicator.findViewById(ID_PIN).setVisibility(View.INVISIBLE);
-                    mScrollIndicatorText.setVisibility(View.INVISIBLE);
-                } else
-                    mScrollIndicator.startAnimation(mFadeOut);
+        }
+    }
+
+    /**
+     * Registers the observers on the current adapter and brings the cached state up to date with it.
+     * <p/>
+     *
+     * @param indexIsCurrent true if the section index was built from this adapter and it is not known to have changed since, e.g. passed to init(); it is kept if it covers exactly the current items, or completed if its build was interrupted by a detach
+     */
+    private void observeAdapter(final boolean indexIsCurrent) {
+        stopObservingAdapter();
+        final Object adapter = getListAdapter();
+        if (HAS_RECYCLER_VIEW && adapter instanceof RecyclerView.Adapter) {
+            if (mAdapterDataObserver == null) {
+                mAdapterDataObserver = new RecyclerView.AdapterDataObserver() {
+                    @Override
+                    public void onChanged() {
+                        onListDataChanged(consumeExpectedAppend());
+                    }
+
+                    @Override
+                    public void onItemRangeChanged(int positionStart, int itemCount) {
+                        onListDataChanged(false);
+                    }
+
+                    @Override
+                    public void onItemRangeInserted(int positionStart, int itemCount) {
+                        onListDataChanged(positionStart >= mItemCount);
+                    }
+
+                    @Override
+                    public void onItemRangeRemoved(int positionStart, int itemCount) {
+                        onListDataChanged(false);
+                    }
+
+                    @Override
+                    public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+                        onListDataChanged(false);
+                    }
+                };
             }
-            if (mType == TYPE_INDICATOR_WITH_HANDLE || mType == TYPE_POPUP_WITH_HANDLE)
-                mHandlebar.setSelected(false);
-        }
-
-        switch (mType) {
-            case TYPE_POPUP:
-                return PopupTouchEvent(event);
-            case TYPE_POPUP_WITH_HANDLE:
-                return PopupTouchEvent(event);
-            case TYPE_INDICATOR:
-                return IndicatorTouchEvent(event);
-            case TYPE_INDICATOR_WITH_HANDLE:
-                return IndicatorTouchEvent(event);
-            default:
-                break;
+            ((RecyclerView.Adapter) adapter).registerAdapterDataObserver(mAdapterDataObserver);
+        } else if (adapter != null) {
+            ((Adapter) adapter).registerDataSetObserver(mDataSetObserver);
         }
-        return false;
+        mObservedAdapter = adapter;
+        if (mList instanceof ExpandableListView) {
+            // expanding and collapsing notifies the list's adapter, but not the ExpandableListAdapter itself
+            mObservedGroupAdapter = ((ExpandableListView) mList).getExpandableListAdapter();
+            if (mObservedGroupAdapter != null)
+                mObservedGroupAdapter.registerDataSetObserver(mGroupDataObserver);
+            mGroupSizes = null;
+        }
+        mExpectedAppend = 0;
+        // anything that happened before the adapter was observed is unknown, so the index is rebuilt
+        final boolean resume = mResumeIndexBuild;
+        mResumeIndexBuild = false;
+        onListDataChanged(indexIsCurrent && mSectionIndex != null
+                && (mSectionIndex.getItemCount() == queryListItemCount() || resume && mSectionIndex.getItemCount() < queryListItemCount()));
     }
 
-    @SuppressLint("NewApi")
-    private boolean IndicatorTouchEvent(final MotionEvent event) {
-        switch (event.getAction()) {
-            case MotionEvent.ACTION_DOWN:
-                if (android.os.Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
-                    mScrollIndicator.findViewById(ID_PIN).setVisibility(View.VISIBLE);
-                    mScrollIndicatorText.setVisibility(View.VISIBLE);
-                } else
-                    mScrollIndicator.startAnimation(mFadeIn);
-                mScrollIndicator.setPadding(0, 0, getWidth(), 0);
-                scroll(event.getY());
-                mScrolling = true;
-                return true;
-            case MotionEvent.ACTION_MOVE:
-                scroll(event.getY());
-                return true;
-            case MotionEvent.ACTION_UP:
-                if (android.os.Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
-                    mScrolling = false;
-                    mScrollIndicator.findViewById(ID_PIN).setVisibility(View.INVISIBLE);
-                    mScrollIndicatorText.setVisibility(View.INVISIBLE);
-                } else
-                    mScrollIndicator.startAnimation(mFadeOut);
-
-                if (mType == TYPE_INDICATOR_WITH_HANDLE || mType == TYPE_POPUP_WITH_HANDLE)
-                    mHandlebar.setSelected(false);
-                return true;
-            default:
-                break;
+    /**
+     * Returns true if the change being reported is the append declared with notifyItemsAppended(), which is consumed.
+     */
+    private boolean consumeExpectedAppend() {
+        final boolean appended = mExpectedAppend > 0 && queryListItemCount() == mItemCount + mExpectedAppend;
+        mExpectedAppend = 0;
+        return appended;
+    }
+
+    /**
+     * Declares that the next change of the adapter only adds the given number of items at the end of the list, e.g. the next page of an endless list. Call it right before notifyDataSetChanged() of the adapter. The section index is then extended with the new items instead of rebuilt; if the item count does not grow by exactly the given number, it is rebuilt anyway.
+     * <p/>
+     * Not needed for a RecyclerView adapter notifying notifyItemRangeInserted() at the end of the list.
+     *
+     * @param count the number of appended items
+     */
+    public void notifyItemsAppended(final int count) {
+        mExpectedAppend = count;
+    }
+
+    /**
+     * Keeps the group sizes up to date as groups are expanded and collapsed, in O(log groups) per event. Replaces the OnGroupExpandListener and OnGroupCollapseListener of the list.
+     */
+    private void trackGroupExpansion(final ExpandableListView list) {
+        list.setOnGroupExpandListener(new ExpandableListView.OnGroupExpandListener() {
+            public void onGroupExpand(int groupPosition) {
+                if (mGroupSizes != null && mObservedGroupAdapter != null)
+                    mGroupSizes.setHeight(groupPosition, 1 + mObservedGroupAdapter.getChildrenCount(groupPosition));
+            }
+        });
+        list.setOnGroupCollapseListener(new ExpandableListView.OnGroupCollapseListener() {
+            public void onGroupCollapse(int groupPosition) {
+                if (mGroupSizes != null)
+                    mGroupSizes.setHeight(groupPosition, 1);
+            }
+        });
+    }
+
+    /**
+     * Returns the group containing the given flat position of the ExpandableListView, -1 if there is none. Resolved by a search over the group sizes, which are rebuilt from the adapter only after it changed; falls back to the list if they do not add up to the item count, e.g. with header views.
+     */
+    private int getGroupForFlatPosition(final int position) {
+        final ExpandableListView list = (ExpandableListView) mList;
+        if (mGroupSizes == null && mObservedGroupAdapter != null) {
+            final int groupCount = mObservedGroupAdapter.getGroupCount();
+            mGroupSizes = new RowHeightIndex(groupCount, 1);
+            for (int group = 0; group < groupCount; group++) {
+                if (list.isGroupExpanded(group))
+                    mGroupSizes.setHeight(group, 1 + mObservedGroupAdapter.getChildrenCount(group));
+            }
+        }
+        if (mGroupSizes == null || mGroupSizes.getTotalHeight() != mItemCount)
+            return ExpandableListView.getPackedPositionGroup(list.getExpandableListPosition(position));
+        if (position < 0 || position >= mItemCount)
+            return -1;
+        return mGroupSizes.getPosition(position);
+    }
+
+    private void stopObservingAdapter() {
+        if (HAS_RECYCLER_VIEW && mObservedAdapter instanceof RecyclerView.Adapter)
+            ((RecyclerView.Adapter) mObservedAdapter).unregisterAdapterDataObserver(mAdapterDataObserver);
+        else if (mObservedAdapter != null)
+            ((Adapter) mObservedAdapter).unregisterDataSetObserver(mDataSetObserver);
+        mObservedAdapter = null;
+        if (mObservedGroupAdapter != null) {
+            mObservedGroupAdapter.unregisterDataSetObserver(mGroupDataObserver);
+            mObservedGroupAdapter = null;
+        }
+    }
+
+    /**
+     * Brings the cached item count, the section index and the row height index up to date after an adapter change. The list is not moved unless a drag is in progress.
+     * <p/>
+     *
+     * @param appended true if the change is known to only add items at the end; the section index is then extended instead of rebuilt
+     */
+    private void onListDataChanged(final boolean appended) {
+        mItemCount = queryListItemCount();
+
+        if (mBuildIndexInBackground) {
+            // an append extends the indexed prefix, or the snapshot published last if a build is running
+            if (!appended || mSectionIndex == null || mItemCount < mSectionIndex.getItemCount())
+                restartIndexBuild(null);
+            else if (mIndexBuilder == null && mItemCount - mSectionIndex.getItemCount() <= SYNC_APPEND_LIMIT)
+                mSectionIndex = mSectionIndex.append(mScrollable, mItemCount);
+            else
+                restartIndexBuild(mSectionIndex);
+        } else if (mSectionIndex != null) {
+            if (appended && mItemCount >= mSectionIndex.getItemCount())
+                mSectionIndex = mSectionIndex.append(mScrollable, mItemCount);
+            else
+                mSectionIndex = mSortedLabels ? SectionIndex.buildSorted(mScrollable, mItemCount) : SectionIndex.build(mScrollable, mItemCount);
+        }
+        if (mRowHeights != null)
+            mRowHeights.setCount(mItemCount);
+        snapshotSectionIndexer();
+        lockPopupSize();
+        scheduleLabelAtlasWarmup();
+
+        invalidate();
+        if (mScrolling && mItemCount > 0) {
+            invalidateScrollState();
+            scroll(lastHeight, mLastFraction);
+        }
+    }
+
+    /**
+     * Builds the section index on background threads instead of the main thread, for very large adapters. Snapshots of the indexed prefix are used while dragging as soon as they are published; positions past the prefix still query the Scrollable. The build restarts whenever the adapter changes and is cancelled when the view is detached.
+     * <p/>
+     * The Scrollable is queried from worker threads during the build, see {@link SectionIndexBuilder}.
+     */
+    public void buildSectionIndexInBackground() {
+        if (!mInitialized || mList instanceof ExpandableListView) return;
+        mBuildIndexInBackground = true;
+        if (getListAdapter() != mObservedAdapter)
+            observeAdapter(false);
+        else
+            restartIndexBuild(null);
+    }
+
+    /**
+     * Starts a background build of the section index, cancelling the running one.
+     * <p/>
+     *
+     * @param base the index of the unchanged first positions to extend, or null to index every position
+     */
+    private void restartIndexBuild(final SectionIndex base) {
+        cancelIndexBuild();
+        mSectionIndex = base;
+        final SectionIndexBuilder builder = new SectionIndexBuilder(mScrollable, base == null ? SectionIndex.empty() : base, mItemCount, new SectionIndexBuilder.Callback() {
+            public void onSectionIndexUpdated(SectionIndex index, boolean complete) {
+                mSectionIndex = index;
+                if (complete) {
+                    mIndexBuilder = null;
+                    lockPopupSize();
+                    scheduleLabelAtlasWarmup();
+                }
+            }
+        });
+        mIndexBuilder = builder;
+        builder.start();
+    }
+
+    private void cancelIndexBuild() {
+        if (mIndexBuilder != null) {
+            mIndexBuilder.cancel();
+            mIndexBuilder = null;
         }
-        return false;
     }
 
-    private boolean PopupTouchEvent(final MotionEvent event) {
+    /**
+     * Moves the bound list to the given position.
+     */
+    private void scrollListTo(final int position) {
+        if (mStickyHeaders!=null) {
+            jumpStickyListTo(position);
+        }else if (mRecyclerView!=null) {
+            final RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+            if (layoutManager instanceof LinearLayoutManager)
+                ((LinearLayoutManager) layoutManager).scrollToPositionWithOffset(position, 0);
+            else
+                mRecyclerView.scrollToPosition(position);
+        }else {
+            mList.setSelection(position);
+        }
+    }
+
+    /**
+     * Moves the sticky list to the given position in bounded time. Far targets are snapped to one screen away with setSelection(), and only the remaining screen is animated, in SETTLE_DURATION ms. A new target cancels the animation of the previous one instead of queueing behind it.
+     */
+    private void jumpStickyListTo(final int position) {
+        removeCallbacks(mSettleRunnable);
+        // stops the running smooth scroll, if any
+        mStickyHeaders.smoothScrollBy(0, 0);
+        final int first = mStickyHeaders.getFirstVisiblePosition();
+        final int distance = Math.max(1, mStickyHeaders.getLastVisiblePosition() - first + 1);
+        mSettlePosition = position;
+        if (Math.abs(position - first) <= distance) {
+            mSettleRunnable.run();
+            return;
+        }
+        mStickyHeaders.setSelection(position > first ? position - distance : position + distance);
+        // posted behind the layout pass of the snap, so the animation starts from the new rows
+        post(mSettleRunnable);
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (!mInitialized || getListItemCount() == 0)
+            return false;
+
         switch (event.getAction()) {
             case MotionEvent.ACTION_DOWN:
-                if (android.os.Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB)
-                    mScrollIndicatorText.setVisibility(View.VISIBLE);
-                else
-                    mScrollIndicatorText.startAnimation(mFadeIn);
+                mIndicatorHandler.show();
                 mScrolling = true;
+                invalidateScrollState();
+                if (mPrecisionScrubbing)
+                    startPrecisionScrub(event);
                 scroll(event.getY());
                 return true;
             case MotionEvent.ACTION_MOVE:
-                scroll(event.getY());
+                requestScroll(event.getY(), mPrecisionScrubbing ? getPrecisionFraction(event) : (double) event.getY() / getHeight());
                 return true;
             case MotionEvent.ACTION_UP:
-                if (android.os.Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
-                    mScrollIndicatorText.setVisibility(View.GONE);
-                    mScrolling = false;
-                } else
-                    mScrollIndicatorText.startAnimation(mFadeOut);
-
-                if (mType == TYPE_INDICATOR_WITH_HANDLE || mType == TYPE_POPUP_WITH_HANDLE)
-                    mHandlebar.setSelected(false);
+                flushPendingScroll();
+                mIndicatorHandler.hide();
+                mHandlebarHandler.setSelected(false);
                 return true;
+            case MotionEvent.ACTION_CANCEL:
+                if (mScrolling) {
+                    cancelPendingScroll();
+                    mIndicatorHandler.hide();
+                    mHandlebarHandler.setSelected(false);
+                }
+                break;
             default:
                 break;
         }
         return false;
     }
 
-    public void notifyDataSetChanged() {
-        mItemCount = mStickyHeaders!=null ? mStickyHeaders.getAdapter().getCount() : mList.getAdapter().getCount();
-        if (mItemCount == 0) return;
-        scroll(lastHeight);
+    /**
+     * Shows, hides and updates the indicator of one QuickScroll type. Resolved once in init(), so the touch path neither checks the type nor allocates.
+     */
+    private interface IndicatorHandler {
+        void show();
+
+        void hide();
+
+        void moveTo(float height);
+
+        /**
+         * Shows a label of the pool; the range of the returned array stays unchanged while shown.
+         */
+        void setText(char[] text, int start, int length, int id);
     }
 
-    @SuppressLint("NewApi")
-    protected void scroll(final float height) {
-        lastHeight = height;
-        if (mType == TYPE_INDICATOR || mType == TYPE_INDICATOR_WITH_HANDLE) {
-            float move = height - (mScrollIndicator.getHeight() / 2);
+    private final class PopupHandler implements IndicatorHandler {
+        public void show() {
+            fade(mFadeIn);
+        }
 
-            if (move < 0)
-                move = 0;
-            else if (move > getHeight() - mScrollIndicator.getHeight())
-                move = getHeight() - mScrollIndicator.getHeight();
+        public void hide() {
+            fade(mFadeOut);
+        }
 
-            if (android.os.Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB)
-                mScrollIndicator.startAnimation(moveCompat(move));
-            else
-                mScrollIndicator.setTranslationY(move);
+        public void moveTo(final float height) {
+            // the popup stays centered
+        }
+
+        public void setText(final char[] text, final int start, final int length, final int id) {
+            mScrollIndicatorText.setText(text, start, length);
+        }
+    }
+
+    private final class PinHandler implements IndicatorHandler {
+        public void show() {
+            mScrollIndicator.setRightInset(getWidth());
+            fade(mFadeIn);
+        }
+
+        public void hide() {
+            fade(mFadeOut);
+        }
+
+        public void moveTo(final float height) {
+            mScrollIndicator.setAnchor(height);
+        }
+
+        public void setText(final char[] text, final int start, final int length, final int id) {
+            mScrollIndicator.setText(text, start, length, id);
         }
+    }
+
+    /**
+     * Animates the alpha of the indicator with a ViewPropertyAnimator. The popup is put on a hardware layer only while the fade runs, so the animation only recomposites the layer and the view is drawn normally while it is updated during the drag. The IndicatorView spans the whole scrollbar area, so it gets no layer; it draws its primitives with the faded alpha instead, see IndicatorView.hasOverlappingRendering().
+     */
+    private void fade(final FadeListener listener) {
+        final View view = listener.mView;
+        view.animate().cancel();
+        if (listener.mIn)
+            view.setVisibility(View.VISIBLE);
+        if (view != mScrollIndicator)
+            view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        view.animate().alpha(listener.mIn ? 1.0f : .0f).setDuration(mFadeDuration).setListener(listener);
+    }
+
+    /**
+     * Drops the hardware layer when a fade ends; a completed fade out also hides the view and ends the drag.
+     */
+    private final class FadeListener extends AnimatorListenerAdapter {
+        private final View mView;
+        private final boolean mIn;
+        private boolean mCancelled;
+
+        FadeListener(final View view, final boolean in) {
+            mView = view;
+            mIn = in;
+        }
+
+        @Override
+        public void onAnimationStart(Animator animation) {
+            mCancelled = false;
+        }
+
+        @Override
+        public void onAnimationCancel(Animator animation) {
+            mCancelled = true;
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            if (mView.getLayerType() != View.LAYER_TYPE_NONE)
+                mView.setLayerType(View.LAYER_TYPE_NONE, null);
+            if (!mIn && !mCancelled) {
+                mView.setVisibility(View.INVISIBLE);
+                mScrolling = false;
+                // resumes the warmup paused by the drag
+                if (mScrollIndicator != null && mScrollIndicator.hasLabelAtlas())
+                    requestLabelAtlasWarmup();
+            }
+        }
+    }
+
+    /**
+     * Selects and moves the handlebar while dragging; a no-op when there is none.
+     */
+    private interface HandlebarHandler {
+        void setSelected(boolean selected);
+
+        void moveTo(float height);
+    }
+
+    private static final HandlebarHandler NO_HANDLEBAR = new HandlebarHandler() {
+        public void setSelected(final boolean selected) {
+        }
+
+        public void moveTo(final float height) {
+        }
+    };
+
+    private final class ViewHandlebarHandler implements HandlebarHandler {
+        public void setSelected(final boolean selected) {
+            if (mHandlebar.setState(selected ? STATE_ACTIVE : STATE_INACTIVE))
+                invalidateHandlebar(mHandlebarTop);
+        }
+
+        public void moveTo(final float height) {
+            moveHandlebar(height - (mHandlebarHeight / 2));
+        }
+    }
+
+    /**
+     * Moves to the given height right away, or on the next frame if frame coalescing is turned on.
+     */
+    private void requestScroll(final float height, final double fraction) {
+        if (!mFrameCoalescing) {
+            scroll(height, fraction);
+            return;
+        }
+        mPendingHeight = height;
+        mPendingFraction = fraction;
+        if (mFramePending)
+            return;
+        mFramePending = true;
+        if (android.os.Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN)
+            postFrameCallback();
+        else
+            post(mFrameRunnable);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void postFrameCallback() {
+        if (mFrameCallback == null) {
+            mFrameCallback = new Choreographer.FrameCallback() {
+                public void doFrame(long frameTimeNanos) {
+                    applyPendingScroll();
+                }
+            };
+        }
+        Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) mFrameCallback);
+    }
+
+    private void applyPendingScroll() {
+        if (!mFramePending)
+            return;
+        mFramePending = false;
+        scroll(mPendingHeight, mPendingFraction);
+    }
+
+    /**
+     * Applies the last recorded height synchronously, so the gesture ends exactly where the finger was lifted.
+     */
+    private void flushPendingScroll() {
+        if (mFramePending) {
+            cancelPendingScroll();
+            scroll(mPendingHeight, mPendingFraction);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void cancelPendingScroll() {
+        if (!mFramePending)
+            return;
+        mFramePending = false;
+        if (mFrameCallback != null)
+            Choreographer.getInstance().removeFrameCallback((Choreographer.FrameCallback) mFrameCallback);
+        removeCallbacks(mFrameRunnable);
+    }
+
+    /**
+     * Turns on frame coalescing: instead of running the whole scroll pipeline for every touch event, only the latest position is recorded and applied once per display frame. Recommended for high refresh rate touch panels, where several move events arrive per frame. Off by default.
+     * <p/>
+     *
+     * @param enabled true to apply at most one scroll update per frame
+     */
+    public void setFrameCoalescing(final boolean enabled) {
+        if (!enabled)
+            flushPendingScroll();
+        mFrameCoalescing = enabled;
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        // changes made while detached were not observed, but the same adapter with as many items as before is taken as unchanged, e.g. after a ViewPager page or fragment swap
+        if (mInitialized && mObservedAdapter == null) {
+            final boolean unchanged = getListAdapter() == mDetachedAdapter && queryListItemCount() == mItemCount;
+            mDetachedAdapter = null;
+            observeAdapter(unchanged);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        cancelPendingScroll();
+        removeCallbacks(mSettleRunnable);
+        removeCallbacks(mHandlebarRunnable);
+        removeCallbacks(mObserveRunnable);
+        mHandlebarPending = false;
+        if (mWarmupScheduled) {
+            removeCallbacks(mWarmupRepost);
+            Looper.myQueue().removeIdleHandler(mWarmupHandler);
+            mWarmupScheduled = false;
+        }
+        mDetachedAdapter = mObservedAdapter;
+        stopObservingAdapter();
+        // the snapshot published last is kept, and the build resumes from it once attached again
+        mResumeIndexBuild = mIndexBuilder != null;
+        cancelIndexBuild();
+        super.onDetachedFromWindow();
+    }
+
+    /**
+     * Refreshes the cached item count and indexes. QuickScroll observes the adapter, so calling this is only needed if the adapter does not notify its observers.
+     */
+    public void notifyDataSetChanged() {
+        if (!mInitialized) return;
+        if (getListAdapter() != mObservedAdapter)
+            observeAdapter(false);
+        else
+            onListDataChanged(consumeExpectedAppend());
+    }
+
+    /**
+     * Turns on precision scrubbing for very long lists, where a pixel of the scrollbar spans many rows. While the finger drags fast, the scrollbar maps to the whole list as usual. Whenever it rests or slows down for a moment, or moves sideways away from the scrollbar, the mapping is refined around the current position: every level makes a pixel span 16 times fewer rows, until it spans a single row or less, so any row of a list with millions of rows can be reached within one gesture. Dragging fast again returns to the whole list. Off by default.
+     * <p/>
+     *
+     * @param enabled true to refine the mapping when the finger slows down or moves sideways
+     */
+    public void setPrecisionScrubbing(final boolean enabled) {
+        mPrecisionScrubbing = enabled;
+    }
+
+    /**
+     * Resets the precision level at the start of a drag. The number of levels is limited, so the finest level is the first one where a pixel spans at most one row.
+     */
+    private void startPrecisionScrub(final MotionEvent event) {
+        mPrecisionLevel = 0;
+        mHoldLevel = 0;
+        mPrecisionScale = 1;
+        mDownX = event.getX();
+        mLastMoveY = event.getY();
+        mLastMoveTime = event.getEventTime();
+        mSlowSince = mLastMoveTime;
+        mPrecisionMaxLevel = 0;
+        double unitsPerPixel = (double) getScrubUnits() / Math.max(getHeight(), 1);
+        while (unitsPerPixel > 1) {
+            unitsPerPixel /= PRECISION_RATIO;
+            mPrecisionMaxLevel++;
+        }
+    }
 
-        if (mType == TYPE_INDICATOR_WITH_HANDLE || mType == TYPE_POPUP_WITH_HANDLE) {
-            mHandlebar.setSelected(true);
-            moveHandlebar(height - (mHandlebar.getHeight() / 2));
+    /**
+     * Returns the number of units the scrollbar maps to: sections, pixels of content with a row height index, or rows.
+     */
+    private long getScrubUnits() {
+        if (mSectionPositions != null)
+            return mSectionPositions.length;
+        if (mRowHeights != null && mRowHeights.size() == mItemCount)
+            return mRowHeights.getTotalHeight();
+        return mItemCount;
+    }
+
+    /**
+     * Updates the precision level from the speed and the sideways distance of the finger, and returns the fraction of the list it points at. At level 0 this is the height of the finger over the height of the scrollbar; at finer levels, the distance moved since the level last changed is scaled down and added to the fraction at that moment.
+     */
+    private double getPrecisionFraction(final MotionEvent event) {
+        final float y = event.getY();
+        final long time = event.getEventTime();
+        final float density = getResources().getDisplayMetrics().density;
+        if (time > mLastMoveTime) {
+            final float speed = Math.abs(y - mLastMoveY) / (time - mLastMoveTime) / density;
+            if (speed >= PRECISION_FAST_SPEED) {
+                mHoldLevel = 0;
+                mSlowSince = time;
+            } else if (speed >= PRECISION_SLOW_SPEED) {
+                mSlowSince = time;
+            } else if (time - mSlowSince >= PRECISION_HOLD) {
+                mHoldLevel++;
+                mSlowSince = time;
+            }
+            mLastMoveY = y;
+            mLastMoveTime = time;
         }
-        int sectionIndexerCount=-1;
-        if (mSectionIndexer!=null) {
-            sectionIndexerCount=mSectionIndexer.getSections().length;
+        final int sidewaysLevel = (int) (Math.max(mDownX - event.getX(), 0) / (PRECISION_STEP * density));
+        mHoldLevel = Math.min(mHoldLevel, mPrecisionMaxLevel);
+        final int level = Math.min(Math.max(mHoldLevel, sidewaysLevel), mPrecisionMaxLevel);
+        if (level != mPrecisionLevel) {
+            mAnchorFraction = getPrecisionFraction(y);
+            mAnchorY = y;
+            mPrecisionLevel = level;
+            mPrecisionScale = Math.pow(PRECISION_RATIO, level);
         }
+        return getPrecisionFraction(y);
+    }
+
+    private double getPrecisionFraction(final float y) {
+        if (mPrecisionLevel == 0)
+            return (double) y / getHeight();
+        final double fraction = mAnchorFraction + (y - mAnchorY) / getHeight() / mPrecisionScale;
+        return Math.min(Math.max(fraction, 0), 1);
+    }
+
+    protected void scroll(final float height) {
+        scroll(height, (double) height / getHeight());
+    }
 
-        int postition = (int) ((height / getHeight()) * (sectionIndexerCount>-1 ? sectionIndexerCount : mItemCount));
+    /**
+     * Moves the indicator and the handlebar to the given height, and the list to the given fraction of its rows. The two only differ while precision scrubbing.
+     */
+    @SuppressLint("NewApi")
+    private void scroll(final float height, final double fraction) {
+        lastHeight = height;
+        mLastFraction = fraction;
+        mIndicatorHandler.moveTo(height);
+        mHandlebarHandler.setSelected(true);
+        mHandlebarHandler.moveTo(height);
+        if (mLabelPool.size() >= MAX_POOLED_LABELS)
+            clearLabelPool();
+        mDragResolver.setSource(mScrollable, mSectionPositions, mSectionIndex, mRowHeights, mItemCount);
+        final int position = mDragResolver.getPosition(fraction);
+        if (position == -1)
+            return;
         if (mList instanceof ExpandableListView) {
-            final int grouppos = ExpandableListView.getPackedPositionGroup(((ExpandableListView) mList).getExpandableListPosition(postition));
+            final int grouppos = getGroupForFlatPosition(position);
             if (grouppos != -1)
                 mGroupPosition = grouppos;
         }
 
-        if (sectionIndexerCount>-1) {
-            if (postition >= sectionIndexerCount) {
-                postition=sectionIndexerCount-1;
-            }
-        }else if (postition >= mItemCount)
-            postition = mItemCount - 1;
-        if (postition < 0)
-            postition = 0;
-
-        mScrollIndicatorText.setText(mScrollable.getIndicatorForPosition(postition, mGroupPosition));
-        int toPosition;
-        if (mSectionIndexer!=null) {
-            toPosition=mSectionIndexer.getPositionForSection(postition);
-        }else {
-            toPosition=mScrollable.getScrollPosition(postition, mGroupPosition);
+        final int changed = mDragResolver.resolve(position, mGroupPosition);
+        if ((changed & DragResolver.LABEL_CHANGED) != 0)
+            updateIndicatorText(mDragResolver.getLabelId());
+        else
+            mSuppressedUpdates++;
+        if ((changed & DragResolver.POSITION_CHANGED) != 0)
+            scrollListTo(mDragResolver.getScrollPosition());
+        else
+            mSuppressedUpdates++;
+    }
+
+    /**
+     * Pushes the pooled label to the indicator as a char range, and records it for the atlas warmup if the atlas had to draw it as text.
+     */
+    private void updateIndicatorText(final int id) {
+        mIndicatorHandler.setText(mLabelPool.getChars(), mLabelPool.getStart(id), mLabelPool.getLength(id), id);
+        if (mScrollIndicator != null && mScrollIndicator.hasLabelAtlas() && !mScrollIndicator.isLabelCached() && mAtlasMissCount < MAX_ATLAS_MISSES)
+            mAtlasMisses[mAtlasMissCount++] = id;
+    }
+
+    /**
+     * Empties the label pool, along with the labels of the atlas rendered for its ids.
+     */
+    private void clearLabelPool() {
+        mLabelPool.clear();
+        mDragResolver.invalidateLabel();
+        mAtlasMissCount = 0;
+        if (mScrollIndicator != null)
+            mScrollIndicator.clearLabelAtlas();
+    }
+
+    /**
+     * Turns on pre-rendered labels for QuickScroll.TYPE_INDICATOR: every label is rendered once into a shared bitmap, and blitted from it while dragging instead of laying out and drawing its glyphs again. The labels of the section index are rendered ahead of time while the main thread is idle. Labels that are not in the atlas yet are drawn as text during a drag, and rendered after it; past the memory cap, the least recently shown labels are evicted. The atlas is rebuilt when the text size, the typeface, the colors or the index change. Off by default, and not applicable to TYPE_POPUP, whose TextView draws the label itself.
+     * <p/>
+     *
+     * @param maxBytes the memory cap of the atlas bitmap, e.g. 1 MB; 0 turns it off
+     */
+    public void setLabelAtlasSize(final int maxBytes) {
+        if (mScrollIndicator == null)
+            return;
+        mScrollIndicator.setLabelAtlasSize(maxBytes);
+        scheduleLabelAtlasWarmup();
+    }
+
+    /**
+     * Sizes the atlas for the labels of the section index, or from the text metrics without one, and renders the labels of the index during the next idle passes of the main thread. Without an index, labels are only rendered as they are shown.
+     */
+    private void scheduleLabelAtlasWarmup() {
+        if (!mInitialized || mScrollIndicator == null || !mScrollIndicator.hasLabelAtlas())
+            return;
+        if (!mScrollIndicator.prepareLabelAtlas(mSectionIndex, MAX_MEASURED_LABELS) || mSectionIndex == null)
+            return;
+        mWarmupNext = 0;
+        requestLabelAtlasWarmup();
+    }
+
+    private void requestLabelAtlasWarmup() {
+        if (!mWarmupScheduled) {
+            mWarmupScheduled = true;
+            Looper.myQueue().addIdleHandler(mWarmupHandler);
         }
-        if (mStickyHeaders!=null) {
-            mStickyHeaders.smoothScrollToPosition(toPosition);
-        }else {
-            mList.setSelection(toPosition);
+    }
+
+    /**
+     * Renders the next WARMUP_BATCH labels into the atlas: first the labels missed during the last drag, evicting the least recently shown ones, then the labels of the section index while there is room. Pauses while dragging, so the atlas texture does not change under the drag; the warmup resumes when the indicator has faded out.
+     *
+     * @return true if there are labels left to render
+     */
+    private boolean warmLabelAtlas() {
+        if (mScrollIndicator == null || mScrolling)
+            return false;
+        final SectionIndex index = mSectionIndex;
+        final int labelCount = index == null ? 0 : Math.min(index.getLabelCount(), MAX_MEASURED_LABELS);
+        for (int i = 0; i < WARMUP_BATCH; i++) {
+            if (mAtlasMissCount > 0) {
+                final int id = mAtlasMisses[--mAtlasMissCount];
+                mScrollIndicator.warmLabel(id, mLabelPool.getChars(), mLabelPool.getStart(id), mLabelPool.getLength(id), true);
+                continue;
+            }
+            if (mWarmupNext >= labelCount || mLabelPool.size() >= MAX_POOLED_LABELS)
+                return false;
+            final int id = mLabelPool.intern(index.getLabelForId(mWarmupNext++));
+            if (!mScrollIndicator.warmLabel(id, mLabelPool.getChars(), mLabelPool.getStart(id), mLabelPool.getLength(id), false))
+                return false;
         }
+        return true;
     }
 
-    @SuppressLint("NewApi")
+    /**
+     * Forgets the last indicator text and list position, so the next scroll() updates both views even if the target has not changed.
+     */
+    private void invalidateScrollState() {
+        mDragResolver.invalidate();
+    }
+
+    /**
+     * Returns the number of indicator text and list position updates skipped since the last reset, because the scrub target had not changed.
+     */
+    public long getSuppressedUpdateCount() {
+        return mSuppressedUpdates;
+    }
+
+    /**
+     * Resets the counter returned by {@link #getSuppressedUpdateCount()}.
+     */
+    public void resetSuppressedUpdateCount() {
+        mSuppressedUpdates = 0;
+    }
+
+    /**
+     * Moves the top of the handlebar to the given height, invalidating only the area it leaves and enters.
+     */
     protected void moveHandlebar(final float where) {
-        float move = where;
+        if (mHandlebar == null)
+            return;
+        int move = (int) where;
+        if (move > getHeight() - mHandlebarHeight - SCROLLBAR_MARGIN)
+            move = getHeight() - mHandlebarHeight - SCROLLBAR_MARGIN;
         if (move < SCROLLBAR_MARGIN)
             move = SCROLLBAR_MARGIN;
-        else if (move > getHeight() - mHandlebar.getHeight() - SCROLLBAR_MARGIN)
-            move = getHeight() - mHandlebar.getHeight() - SCROLLBAR_MARGIN;
+        if (move == mHandlebarTop)
+            return;
 
-        if (android.os.Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB)
-            mHandlebar.startAnimation(moveCompat(move));
-        else
-            mHandlebar.setTranslationY(move);
+        final int left = (getWidth() - mHandlebarWidth) / 2;
+        invalidate(left, Math.min(move, mHandlebarTop), left + mHandlebarWidth, Math.max(move, mHandlebarTop) + mHandlebarHeight);
+        mHandlebarTop = move;
+    }
+
+    private void invalidateHandlebar(final int top) {
+        final int left = (getWidth() - mHandlebarWidth) / 2;
+        invalidate(left, top, left + mHandlebarWidth, top + mHandlebarHeight);
     }
 
     /**
@@ -451,8 +1296,6 @@ public class QuickScroll extends View {
      */
     public void setFadeDuration(long millis) {
         mFadeDuration = millis;
-        mFadeIn.setDuration(mFadeDuration);
-        mFadeOut.setDuration(mFadeDuration);
     }
 
     /**
@@ -465,9 +1308,8 @@ public class QuickScroll extends View {
      */
     public void setIndicatorColor(final int background, final int tip, final int text) {
         if (mType == TYPE_INDICATOR || mType == TYPE_INDICATOR_WITH_HANDLE) {
-            ((Pin) mScrollIndicator.findViewById(ID_PIN)).setColor(tip);
-            mScrollIndicatorText.setTextColor(text);
-            mScrollIndicatorText.setBackgroundColor(background);
+            mScrollIndicator.setColors(background, tip, text);
+            scheduleLabelAtlasWarmup();
         }
     }
 
@@ -482,6 +1324,8 @@ public class QuickScroll extends View {
     @SuppressWarnings("deprecation")
     @SuppressLint("NewApi")
     public void setPopupColor(final int backgroundcolor, final int bordercolor, final int borderwidthDPI, final int textcolor, float cornerradiusDPI) {
+        if (mScrollIndicatorText == null)
+            return;
 
         final GradientDrawable popupbackground = new GradientDrawable();
         popupbackground.setCornerRadius(cornerradiusDPI * getResources().getDisplayMetrics().density);
@@ -497,7 +1341,56 @@ public class QuickScroll extends View {
     }
 
     /**
-     * Sets the width and height of the TextView containing the indicatortext. Default is WRAP_CONTENT, WRAP_CONTENT.
+     * Locks the popup to the size of the widest and tallest label of the section index, so changing the label while dragging only redraws the popup instead of laying out the overlay. Runs when the index, the text size, the typeface or the padding changes, never on the drag path.
+     * <p/>
+     * Skipped once the size was set with setSize() or setFixedSize(), and without a section index or if it holds more than MAX_MEASURED_LABELS distinct labels; the popup then wraps its content.
+     */
+    private void lockPopupSize() {
+        if (!mInitialized || mScrollIndicatorText == null || mPopupSizeSet)
+            return;
+        final LayoutParams params = mScrollIndicatorText.getLayoutParams();
+        final int labelCount = mSectionIndex == null ? 0 : mSectionIndex.getLabelCount();
+        if (labelCount == 0 || labelCount > MAX_MEASURED_LABELS) {
+            if (params.width != LayoutParams.WRAP_CONTENT || params.height != LayoutParams.WRAP_CONTENT) {
+                params.width = LayoutParams.WRAP_CONTENT;
+                params.height = LayoutParams.WRAP_CONTENT;
+                mScrollIndicatorText.requestLayout();
+            }
+            return;
+        }
+
+        final TextPaint paint = mScrollIndicatorText.getPaint();
+        float textWidth = 0;
+        int lines = 1;
+        for (int id = 0; id < labelCount; id++) {
+            final String label = mSectionIndex.getLabelForId(id);
+            if (label == null)
+                continue;
+            int labelLines = 0;
+            int lineStart = 0;
+            for (int i = 0; i <= label.length(); i++) {
+                if (i == label.length() || label.charAt(i) == '\n') {
+                    textWidth = Math.max(textWidth, paint.measureText(label, lineStart, i));
+                    labelLines++;
+                    lineStart = i + 1;
+                }
+            }
+            lines = Math.max(lines, labelLines);
+        }
+        final Paint.FontMetricsInt metrics = paint.getFontMetricsInt();
+        // font padding above the first and below the last line, as TextView adds it by default
+        final int fontPadding = (metrics.bottom - metrics.top) - (metrics.descent - metrics.ascent);
+        final int width = (int) Math.ceil(textWidth) + mScrollIndicatorText.getCompoundPaddingLeft() + mScrollIndicatorText.getCompoundPaddingRight();
+        final int height = lines * mScrollIndicatorText.getLineHeight() + fontPadding + mScrollIndicatorText.getCompoundPaddingTop() + mScrollIndicatorText.getCompoundPaddingBottom();
+        if (params.width != width || params.height != height) {
+            params.width = width;
+            params.height = height;
+            mScrollIndicatorText.requestLayout();
+        }
+    }
+
+    /**
+     * Sets the width and height of the TextView containing the indicatortext. Default is the size of the largest label of the section index, or WRAP_CONTENT, WRAP_CONTENT without one.
      * <p/>
      *
      * @param widthDP  width in DP
@@ -505,8 +1398,14 @@ public class QuickScroll extends View {
      */
     public void setSize(final int widthDP, final int heightDP) {
         final float density = getResources().getDisplayMetrics().density;
+        if (mScrollIndicator != null) {
+            mScrollIndicator.setFixedSize((int) (widthDP * density), (int) (heightDP * density));
+            return;
+        }
+        mPopupSizeSet = true;
         mScrollIndicatorText.getLayoutParams().width = (int) (widthDP * density);
         mScrollIndicatorText.getLayoutParams().height = (int) (heightDP * density);
+        mScrollIndicatorText.requestLayout();
     }
 
     /**
@@ -520,8 +1419,12 @@ public class QuickScroll extends View {
      */
     public void setTextPadding(final int paddingLeftDP, final int paddingTopDP, final int paddingBottomDP, final int paddingRightDP) {
         final float density = getResources().getDisplayMetrics().density;
-        mScrollIndicatorText.setPadding((int) (paddingLeftDP * density), (int) (paddingTopDP * density), (int) (paddingRightDP * density), (int) (paddingBottomDP * density));
-
+        if (mScrollIndicator != null)
+            mScrollIndicator.setTextPadding((int) (paddingLeftDP * density), (int) (paddingTopDP * density), (int) (paddingRightDP * density), (int) (paddingBottomDP * density));
+        else {
+            mScrollIndicatorText.setPadding((int) (paddingLeftDP * density), (int) (paddingTopDP * density), (int) (paddingRightDP * density), (int) (paddingBottomDP * density));
+            lockPopupSize();
+        }
     }
 
     /**
@@ -531,6 +1434,13 @@ public class QuickScroll extends View {
      * @param sizeEMS number of characters in the indicatortext
      */
     public void setFixedSize(final int sizeEMS) {
+        if (mScrollIndicator != null) {
+            mScrollIndicator.setEms(sizeEMS);
+            return;
+        }
+        mPopupSizeSet = true;
+        mScrollIndicatorText.getLayoutParams().width = LayoutParams.WRAP_CONTENT;
+        mScrollIndicatorText.getLayoutParams().height = LayoutParams.WRAP_CONTENT;
         mScrollIndicatorText.setEms(sizeEMS);
     }
 
@@ -541,7 +1451,13 @@ public class QuickScroll extends View {
      * @param size - the size according to the selected unit
      */
     public void setTextSize(final int unit, final float size) {
-        mScrollIndicatorText.setTextSize(unit, size);
+        if (mScrollIndicator != null) {
+            mScrollIndicator.setTextSize(unit, size);
+            scheduleLabelAtlasWarmup();
+        } else {
+            mScrollIndicatorText.setTextSize(unit, size);
+            lockPopupSize();
+        }
     }
 
     /**
@@ -550,7 +1466,13 @@ public class QuickScroll extends View {
      * @param typeface the typeface
      */
     public void setTypeface(final Typeface typeface) {
-        mScrollIndicatorText.setTypeface(typeface);
+        if (mScrollIndicator != null) {
+            mScrollIndicator.setTypeface(typeface);
+            scheduleLabelAtlasWarmup();
+        } else {
+            mScrollIndicatorText.setTypeface(typeface);
+            lockPopupSize();
+        }
     }
 
     /**
@@ -560,7 +1482,13 @@ public class QuickScroll extends View {
      * @param style    the style
      */
     public void setTypeface(final Typeface typeface, int style) {
-        mScrollIndicatorText.setTypeface(typeface, style);
+        if (mScrollIndicator != null) {
+            mScrollIndicator.setTypeface(typeface, style);
+            scheduleLabelAtlasWarmup();
+        } else {
+            mScrollIndicatorText.setTypeface(typeface, style);
+            lockPopupSize();
+        }
     }
 
     /**
@@ -570,28 +1498,29 @@ public class QuickScroll extends View {
      * @param activebase   - base color of the active handlebar
      * @param activestroke - stroke of the active handlebar
      */
-    @SuppressWarnings("deprecation")
-    @SuppressLint("NewApi")
     public void setHandlebarColor(final int inactive, final int activebase, final int activestroke) {
-        if (mType == TYPE_INDICATOR_WITH_HANDLE || mType == TYPE_POPUP_WITH_HANDLE) {
-            final float density = getResources().getDisplayMetrics().density;
-            final GradientDrawable bg_inactive = new GradientDrawable();
-            bg_inactive.setCornerRadius(density);
-            bg_inactive.setColor(inactive);
-            bg_inactive.setStroke((int) (5 * density), Color.TRANSPARENT);
-            final GradientDrawable bg_active = new GradientDrawable();
-            bg_active.setCornerRadius(density);
-            bg_active.setColor(activebase);
-            bg_active.setStroke((int) (5 * density), activestroke);
-            final StateListDrawable states = new StateListDrawable();
-            states.addState(new int[]{android.R.attr.state_selected}, bg_active);
-            states.addState(new int[]{android.R.attr.state_enabled}, bg_inactive);
-
-            if (android.os.Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN)
-                mHandlebar.setBackgroundDrawable(states);
-            else
-                mHandlebar.setBackground(states);
-        }
+        if (mHandlebar == null)
+            return;
+        final Drawable handlebar = createHandlebarDrawable(inactive, activebase, activestroke);
+        handlebar.setState(mHandlebar.getState());
+        mHandlebar = handlebar;
+        invalidateHandlebar(mHandlebarTop);
+    }
+
+    private Drawable createHandlebarDrawable(final int inactive, final int activebase, final int activestroke) {
+        final float density = getResources().getDisplayMetrics().density;
+        final GradientDrawable bg_inactive = new GradientDrawable();
+        bg_inactive.setCornerRadius(density);
+        bg_inactive.setColor(inactive);
+        bg_inactive.setStroke((int) (5 * density), Color.TRANSPARENT);
+        final GradientDrawable bg_active = new GradientDrawable();
+        bg_active.setCornerRadius(density);
+        bg_active.setColor(activebase);
+        bg_active.setStroke((int) (5 * density), activestroke);
+        final StateListDrawable states = new StateListDrawable();
+        states.addState(new int[]{android.R.attr.state_selected}, bg_active);
+        states.addState(new int[]{android.R.attr.state_enabled}, bg_inactive);
+        return states;
     }
 
     /**
@@ -601,85 +1530,204 @@ public class QuickScroll extends View {
      * @param height - the height in pixels
      */
     public void setHandlebarSize(final float width, final float height) {
-        final RelativeLayout.LayoutParams params = (RelativeLayout.LayoutParams) mHandlebar.getLayoutParams();
-        params.width = (int) width;
-        params.height = (int) height;
+        if (mHandlebar == null)
+            return;
+        mHandlebarWidth = (int) width;
+        mHandlebarHeight = (int) height;
+        invalidate();
     }
 
-    private TranslateAnimation moveCompat(final float toYDelta) {
-        mMoveCompatAnim = new TranslateAnimation(0, 0, toYDelta, toYDelta);
-        mMoveCompatAnim.setFillAfter(true);
-        mMoveCompatAnim.setDuration(0);
-        return mMoveCompatAnim;
+    /**
+     * Marks a position on the scrollbar.
+     * <p/>
+     *
+     * @param position the position in the list
+     */
+    public void addMarker(int position) {
+        final int index = Arrays.binarySearch(mMarkers, 0, mMarkerCount, position);
+        if (index >= 0)
+            return;
+        final int insert = -index - 1;
+        ensureMarkerCapacity(mMarkerCount + 1);
+        System.arraycopy(mMarkers, insert, mMarkers, insert + 1, mMarkerCount - insert);
+        mMarkers[insert] = position;
+        mMarkerCount++;
+        invalidate();
     }
 
-    protected RelativeLayout createPin(){
-        final RelativeLayout pinLayout = new RelativeLayout(getContext());
-        pinLayout.setVisibility(View.INVISIBLE);
-
-        final Pin pin = new Pin(getContext());
-        pin.setId(ID_PIN);
-        final RelativeLayout.LayoutParams pinParams = new RelativeLayout.LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
-        pinParams.addRule(RelativeLayout.ALIGN_PARENT_RIGHT);
-        pinParams.addRule(RelativeLayout.ALIGN_BOTTOM, ID_PIN_TEXT);
-        pinParams.addRule(RelativeLayout.ALIGN_TOP, ID_PIN_TEXT);
-        pin.setLayoutParams(pinParams);
-        pinLayout.addView(pin);
+    /**
+     * Marks several positions on the scrollbar at once. Costs O(n log n) for n markers, prefer it to calling addMarker() in a loop.
+     * <p/>
+     *
+     * @param positions the positions in the list, in any order
+     */
+    public void addMarkers(int[] positions) {
+        if (positions.length == 0)
+            return;
+        final int[] merged = Arrays.copyOf(mMarkers, mMarkerCount + positions.length);
+        System.arraycopy(positions, 0, merged, mMarkerCount, positions.length);
+        Arrays.sort(merged);
+        int count = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (count == 0 || merged[i] != merged[count - 1])
+                merged[count++] = merged[i];
+        }
+        mMarkers = merged;
+        mMarkerCount = count;
+        invalidate();
+    }
 
-        final TextView indicatorTextView = new TextView(getContext());
-        indicatorTextView.setId(ID_PIN_TEXT);
-        final RelativeLayout.LayoutParams indicatorParams = new RelativeLayout.LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
-        indicatorParams.addRule(RelativeLayout.LEFT_OF, ID_PIN);
-        indicatorTextView.setLayoutParams(indicatorParams);
-        indicatorTextView.setTextColor(Color.WHITE);
-        indicatorTextView.setGravity(Gravity.CENTER);
-        indicatorTextView.setBackgroundColor(GREY_LIGHT);
-        pinLayout.addView(indicatorTextView);
+    public void clearMarkers() {
+        mMarkerCount = 0;
+        invalidate();
+    }
 
-        return pinLayout;
+    public void removeMarker(int position) {
+        final int index = Arrays.binarySearch(mMarkers, 0, mMarkerCount, position);
+        if (index < 0)
+            return;
+        System.arraycopy(mMarkers, index + 1, mMarkers, index, mMarkerCount - index - 1);
+        mMarkerCount--;
+        invalidate();
     }
 
-    @SuppressLint("NewApi")
-    public void addMarker(int position) {
-        final float density = getResources().getDisplayMetrics().density;
+    /**
+     * Removes several markers at once in O(n log n).
+     * <p/>
+     *
+     * @param positions the positions in the list, in any order
+     */
+    public void removeMarkers(int[] positions) {
+        if (positions.length == 0)
+            return;
+        final int[] removed = positions.clone();
+        Arrays.sort(removed);
+        int count = 0;
+        for (int i = 0; i < mMarkerCount; i++) {
+            if (Arrays.binarySearch(removed, mMarkers[i]) < 0)
+                mMarkers[count++] = mMarkers[i];
+        }
+        mMarkerCount = count;
+        invalidate();
+    }
 
-        View marker = new View(getContext());
-        marker.setBackgroundColor(getResources().getColor(android.R.color.holo_green_dark));
-        final RelativeLayout.LayoutParams params = new RelativeLayout.LayoutParams((int) (12 * density), (int) (MARKER_HEIGHT * density));
-        marker.setLayoutParams(params);
-        ((RelativeLayout.LayoutParams) marker.getLayoutParams()).addRule(RelativeLayout.CENTER_HORIZONTAL);
+    private void ensureMarkerCapacity(final int capacity) {
+        if (mMarkers.length < capacity)
+            mMarkers = Arrays.copyOf(mMarkers, Math.max(capacity, mMarkers.length * 2));
+    }
 
-        mItemCount = mStickyHeaders!=null ? mStickyHeaders.getAdapter().getCount() : mList.getAdapter().getCount();
-        int move = (position * layout.getHeight() / mItemCount);
-        if (move < SCROLLBAR_MARGIN)
-            move = SCROLLBAR_MARGIN;
-        else if (move > getHeight() - mHandlebar.getHeight() - SCROLLBAR_MARGIN)
-            move = getHeight() - mHandlebar.getHeight() - SCROLLBAR_MARGIN;
-        move += position * (mHandlebar.getHeight()-SCROLLBAR_MARGIN) / mItemCount;
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (mTrackPaint != null) {
+            final int trackLeft = (getWidth() - 1) / 2;
+            canvas.drawRect(trackLeft, SCROLLBAR_MARGIN, trackLeft + 1, getHeight() - SCROLLBAR_MARGIN, mTrackPaint);
+        }
+        drawMarkers(canvas);
+        if (mHandlebar != null) {
+            final int left = (getWidth() - mHandlebarWidth) / 2;
+            mHandlebar.setBounds(left, mHandlebarTop, left + mHandlebarWidth, mHandlebarTop + mHandlebarHeight);
+            mHandlebar.draw(canvas);
+        }
+    }
 
-        marker.setTranslationY(move);
+    /**
+     * Draws all markers in one pass. Markers falling on the same pixel row are drawn once.
+     */
+    @SuppressWarnings("deprecation")
+    private void drawMarkers(final Canvas canvas) {
+        if (mMarkerCount == 0 || !mInitialized)
+            return;
+        if (getListAdapter() != mObservedAdapter) {
+            // the markers are drawn for the old count until the new adapter is observed
+            removeCallbacks(mObserveRunnable);
+            post(mObserveRunnable);
+        }
+        final int itemCount = mItemCount;
+        if (itemCount == 0)
+            return;
+        if (mMarkerPaint == null) {
+            mMarkerPaint = new Paint();
+            mMarkerPaint.setColor(getResources().getColor(android.R.color.holo_green_dark));
+        }
 
-        layout.addView(marker);
+        final float density = getResources().getDisplayMetrics().density;
+        final int handleHeight = mHandlebar == null ? 0 : mHandlebarHeight;
+        final int left = (int) ((getWidth() - 12 * density) / 2);
+        final int right = left + (int) (12 * density);
+        final int markerHeight = (int) (MARKER_HEIGHT * density);
+        final int height = getHeight();
+        int last = Integer.MIN_VALUE;
+        for (int i = 0; i < mMarkerCount; i++) {
+            final long position = mMarkers[i];
+            int move = (int) (position * height / itemCount);
+            if (move < SCROLLBAR_MARGIN)
+                move = SCROLLBAR_MARGIN;
+            else if (move > height - handleHeight - SCROLLBAR_MARGIN)
+                move = height - handleHeight - SCROLLBAR_MARGIN;
+            move += (int) (position * (handleHeight - SCROLLBAR_MARGIN) / itemCount);
+            if (move == last)
+                continue;
+            last = move;
+            canvas.drawRect(left, move, right, move + markerHeight, mMarkerPaint);
+        }
+    }
 
-        markers.put(position, marker);
+    /**
+     * Sets a SectionIndexer; dragging then maps the touched height to a section instead of a position, and the indicator text is requested from the Scrollable with the section number. The sections and their positions are copied into an array here and every time the adapter changes, so dragging never calls the indexer.
+     * <p/>
+     *
+     * @param sectionIndexer the indexer, or null to map the height to positions
+     */
+    public void setSectionIndexer(SectionIndexer sectionIndexer) {
+        mSectionIndexer=sectionIndexer;
+        snapshotSectionIndexer();
     }
 
-    public void clearMarkers() {
-        for (Integer position : markers.keySet()) {
-            View v = markers.get(position);
-            layout.removeView(v);
-            markers.remove(position);
+    private void snapshotSectionIndexer() {
+        if (mSectionIndexer == null) {
+            mSectionPositions = null;
+            return;
         }
+        final Object[] sections = mSectionIndexer.getSections();
+        final int[] positions = new int[sections == null ? 0 : sections.length];
+        for (int section = 0; section < positions.length; section++)
+            positions[section] = mSectionIndexer.getPositionForSection(section);
+        mSectionPositions = positions;
     }
 
-    public void removeMarker(int position) {
-        View v = markers.get(position);
-        layout.removeView(v);
-        markers.remove(position);
+    /**
+     * Sets the precomputed section index used on the drag path. Not applicable to ExpandableListView, whose flat positions change with every expand and collapse; positions past the indexed range query the Scrollable. The index is kept up to date as the adapter changes.
+     * <p/>
+     *
+     * @param index the index built from the adapter, or null to query the Scrollable on every move
+     */
+    public void setSectionIndex(SectionIndex index) {
+        cancelIndexBuild();
+        mBuildIndexInBackground = false;
+        mSectionIndex = mList instanceof ExpandableListView ? null : index;
+        lockPopupSize();
+        scheduleLabelAtlasWarmup();
     }
 
-    public void setSectionIndexer(SectionIndexer sectionIndexer) {
-        mSectionIndexer=sectionIndexer;
+    /**
+     * Declares that the positions of the adapter are grouped by label, e.g. sorted alphabetically. The section index set with {@link #setSectionIndex(SectionIndex)} is then rebuilt with {@link SectionIndex#buildSorted(Scrollable, int)} when the adapter changes, in O(sections * log n) adapter calls.
+     * <p/>
+     *
+     * @param sorted true if every label appears in a single run of positions
+     */
+    public void setSortedLabels(boolean sorted) {
+        mSortedLabels = sorted;
+    }
+
+    /**
+     * Turns on pixel-accurate mapping for lists with variable-height rows. The handlebar and the drag-to-position mapping then follow the pixel offset of the list instead of the item count; rows are measured into the index as they become visible. Not applicable to ExpandableListView, and ignored whenever the index size differs from the item count.
+     * <p/>
+     *
+     * @param rowHeights the height index, sized to the adapter, or null to treat all rows as equally high
+     */
+    public void setRowHeightIndex(RowHeightIndex rowHeights) {
+        mRowHeights = mList instanceof ExpandableListView ? null : rowHeights;
     }
 
     public void setStickyHeaders(StickyListHeadersListView stickyListHeadersListView) {
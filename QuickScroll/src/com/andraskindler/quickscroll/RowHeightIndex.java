@@ -0,0 +1,117 @@
+package com.andraskindler.quickscroll;
+
+import java.util.Arrays;
+
+/**
+ * Row heights of a list with variable-height rows, kept in a Fenwick tree so QuickScroll can map between pixel offsets and positions in O(log n).
+ * <p/>
+ * Every row starts with an estimated height; QuickScroll replaces the estimates with measured heights as rows become visible.
+ */
+public final class RowHeightIndex {
+
+    private final int mEstimatedHeight;
+    private int mCount;
+    private int[] mHeights;
+    // 1-based Fenwick tree of the heights
+    private long[] mTree;
+
+    /**
+     * @param count           the number of rows
+     * @param estimatedHeight the height in pixels assumed for rows that have not been measured yet
+     */
+    public RowHeightIndex(final int count, final int estimatedHeight) {
+        mEstimatedHeight = estimatedHeight;
+        mHeights = new int[0];
+        mTree = new long[1];
+        setCount(count);
+    }
+
+    /**
+     * Resizes the index. Heights of the remaining rows are kept, new rows get the estimated height. Growing costs O(k log n) for k new rows, shrinking rebuilds the tree in O(n).
+     */
+    public void setCount(final int count) {
+        if (count >= mCount) {
+            if (count + 1 > mTree.length) {
+                final int capacity = Math.max(count, mCount * 2);
+                mHeights = Arrays.copyOf(mHeights, capacity);
+                mTree = Arrays.copyOf(mTree, capacity + 1);
+            }
+            for (int i = mCount + 1; i <= count; i++) {
+                mHeights[i - 1] = mEstimatedHeight;
+                mCount = i - 1;
+                // a node covers the rows (i - lowbit(i), i]
+                mTree[i] = mEstimatedHeight + getOffset(i - 1) - getOffset(i - (i & -i));
+            }
+            mCount = count;
+            return;
+        }
+        mCount = count;
+        mTree = new long[count + 1];
+        for (int i = 1; i <= count; i++) {
+            mTree[i] += mHeights[i - 1];
+            final int parent = i + (i & -i);
+            if (parent <= count)
+                mTree[parent] += mTree[i];
+        }
+    }
+
+    /**
+     * Returns the number of rows.
+     */
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * Records the height of a row, in O(log n).
+     */
+    public void setHeight(final int position, final int height) {
+        if (position < 0 || position >= mCount)
+            return;
+        final int delta = height - mHeights[position];
+        if (delta == 0)
+            return;
+        mHeights[position] = height;
+        for (int i = position + 1; i <= mCount; i += i & -i)
+            mTree[i] += delta;
+    }
+
+    public int getHeight(final int position) {
+        return mHeights[position];
+    }
+
+    /**
+     * Returns the offset of the top of the given row, i.e. the sum of the heights of all rows above it.
+     */
+    public long getOffset(final int position) {
+        long offset = 0;
+        for (int i = Math.min(position, mCount); i > 0; i -= i & -i)
+            offset += mTree[i];
+        return offset;
+    }
+
+    /**
+     * Returns the height of all rows.
+     */
+    public long getTotalHeight() {
+        return getOffset(mCount);
+    }
+
+    /**
+     * Returns the row containing the given offset, clamped to the valid range.
+     */
+    public int getPosition(final long offset) {
+        if (mCount == 0)
+            return -1;
+        int position = 0;
+        long remaining = offset;
+        for (int step = Integer.highestOneBit(mCount); step > 0; step >>= 1) {
+            final int next = position + step;
+            if (next <= mCount && mTree[next] <= remaining) {
+                position = next;
+                remaining -= mTree[next];
+            }
+        }
+        return Math.min(position, mCount - 1);
+    }
+}
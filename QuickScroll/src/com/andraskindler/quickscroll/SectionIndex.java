@@ -0,0 +1,330 @@
+package com.andraskindler.quickscroll;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * An immutable snapshot of the sections of a {@link Scrollable}, used by QuickScroll to resolve the indicator text and the target position without calling back into the adapter while dragging.
+ * <p/>
+ * A section is a run of consecutive positions sharing the same indicator text. Section starts and label ids are kept in primitive arrays, lookups are binary searches.
+ * Snapshots produced by {@link #append(Scrollable, int)} share their arrays with the snapshot they were derived from, so growing an index only costs the appended rows.
+ */
+public final class SectionIndex {
+
+    // number of evenly spaced positions sampled by buildSorted()
+    private static final int SAMPLE_COUNT = 1024;
+
+    /**
+     * Growable arrays shared by successive snapshots. A snapshot only reads below its own counts, so entries past them can be written without affecting it.
+     */
+    private static final class Storage {
+        int[] starts = new int[16];
+        int[] labelIds = new int[16];
+        String[] labels = new String[16];
+        int[] scrollPositions;
+        HashMap<String, Integer> ids = new HashMap<String, Integer>();
+        int itemCount, sectionCount, labelCount;
+
+        Storage copy(final int items, final int sections, final int labelsUsed) {
+            final Storage copy = new Storage();
+            copy.starts = Arrays.copyOf(starts, Math.max(sections, 16));
+            copy.labelIds = Arrays.copyOf(labelIds, Math.max(sections, 16));
+            copy.labels = Arrays.copyOf(labels, Math.max(labelsUsed, 16));
+            if (scrollPositions != null)
+                copy.scrollPositions = Arrays.copyOf(scrollPositions, items);
+            for (int id = 0; id < labelsUsed; id++)
+                copy.ids.put(labels[id], id);
+            copy.itemCount = items;
+            copy.sectionCount = sections;
+            copy.labelCount = labelsUsed;
+            return copy;
+        }
+
+        void index(final Scrollable scrollable, final int to) {
+            for (int position = itemCount; position < to; position++) {
+                addSection(position, scrollable.getIndicatorForPosition(position, -1));
+                setScrollPosition(position, scrollable.getScrollPosition(position, -1), to);
+                itemCount = position + 1;
+            }
+        }
+
+        /**
+         * Starts a new section at the given position, unless its label equals the label of the last section.
+         */
+        void addSection(final int position, final String label) {
+            if (sectionCount > 0 && equal(label, labels[labelIds[sectionCount - 1]]))
+                return;
+            Integer id = ids.get(label);
+            if (id == null) {
+                id = labelCount++;
+                if (id == labels.length)
+                    labels = Arrays.copyOf(labels, id * 2);
+                labels[id] = label;
+                ids.put(label, id);
+            }
+            if (sectionCount == starts.length) {
+                starts = Arrays.copyOf(starts, sectionCount * 2);
+                labelIds = Arrays.copyOf(labelIds, sectionCount * 2);
+            }
+            starts[sectionCount] = position;
+            labelIds[sectionCount] = id;
+            sectionCount++;
+        }
+
+        /**
+         * Records a scroll position; the array is only allocated once a position does not map to itself.
+         */
+        void setScrollPosition(final int position, final int scrollPosition, final int capacity) {
+            if (scrollPositions == null) {
+                if (scrollPosition == position)
+                    return;
+                scrollPositions = new int[Math.max(capacity, 16)];
+                for (int i = 0; i < position; i++)
+                    scrollPositions[i] = i;
+            }
+            if (position >= scrollPositions.length)
+                scrollPositions = Arrays.copyOf(scrollPositions, Math.max(capacity, position * 2));
+            scrollPositions[position] = scrollPosition;
+        }
+    }
+
+    private final Storage mStorage;
+    private final int mItemCount;
+    private final int mSectionCount;
+    private final int mLabelCount;
+    // start position of every section, ascending
+    private final int[] mStarts;
+    // label id of every section
+    private final int[] mLabelIds;
+    // distinct labels, indexed by label id
+    private final String[] mLabels;
+    // scroll position of every item, null if it equals the position itself
+    private final int[] mScrollPositions;
+
+    private SectionIndex(final Storage storage) {
+        mStorage = storage;
+        mItemCount = storage.itemCount;
+        mSectionCount = storage.sectionCount;
+        mLabelCount = storage.labelCount;
+        mStarts = storage.starts;
+        mLabelIds = storage.labelIds;
+        mLabels = storage.labels;
+        mScrollPositions = storage.scrollPositions;
+    }
+
+    /**
+     * Builds the index by querying the Scrollable once for every position. Call it off the drag path, e.g. right after setting the adapter.
+     * <p/>
+     *
+     * @param scrollable the adapter, must implement Scrollable interface
+     * @param itemCount  the number of items in the list
+     */
+    public static SectionIndex build(final Scrollable scrollable, final int itemCount) {
+        final Storage storage = new Storage();
+        storage.index(scrollable, itemCount);
+        return new SectionIndex(storage);
+    }
+
+    /**
+     * Builds the index of a list whose positions are grouped by label, e.g. sorted alphabetically, in O(sections * log n) calls to the Scrollable instead of O(n).
+     * <p/>
+     * Labels are sampled at evenly spaced positions; between two samples with different labels, the section boundaries are found by binary search. A label that appears in more than one run of positions breaks the search, use {@link #build(Scrollable, int)} for such lists.
+     * getScrollPosition() is not queried, every position scrolls to itself.
+     * <p/>
+     *
+     * @param scrollable the adapter, must implement Scrollable interface
+     * @param itemCount  the number of items in the list
+     */
+    public static SectionIndex buildSorted(final Scrollable scrollable, final int itemCount) {
+        final Storage storage = new Storage();
+        if (itemCount == 0)
+            return new SectionIndex(storage);
+
+        final int step = Math.max(1, itemCount / SAMPLE_COUNT);
+        int from = 0;
+        String fromLabel = scrollable.getIndicatorForPosition(0, -1);
+        storage.addSection(0, fromLabel);
+        while (from < itemCount - 1) {
+            final int to = Math.min(itemCount - 1, from + step);
+            final String toLabel = scrollable.getIndicatorForPosition(to, -1);
+            // every label change in (from, to] starts a section
+            while (!equal(fromLabel, toLabel)) {
+                int low = from + 1;
+                int high = to;
+                while (low < high) {
+                    final int mid = (low + high) >>> 1;
+                    if (equal(scrollable.getIndicatorForPosition(mid, -1), fromLabel))
+                        low = mid + 1;
+                    else
+                        high = mid;
+                }
+                from = low;
+                fromLabel = low == to ? toLabel : scrollable.getIndicatorForPosition(low, -1);
+                storage.addSection(from, fromLabel);
+            }
+            from = to;
+        }
+        storage.itemCount = itemCount;
+        return new SectionIndex(storage);
+    }
+
+    /**
+     * Returns an index covering the given number of items, querying the Scrollable only for the positions past {@link #getItemCount()}. Assumes the already indexed positions did not change.
+     * <p/>
+     *
+     * @param scrollable the adapter, must implement Scrollable interface
+     * @param itemCount  the new number of items in the list, not less than the current one
+     */
+    public SectionIndex append(final Scrollable scrollable, final int itemCount) {
+        if (itemCount <= mItemCount)
+            return this;
+        final Storage storage = writableStorage();
+        storage.index(scrollable, itemCount);
+        return new SectionIndex(storage);
+    }
+
+    /**
+     * Collects sections computed elsewhere in ascending position order, e.g. by the bucketing indexers. Consecutive sections with equal labels are merged.
+     */
+    static final class Sections {
+        private final Storage mStorage = new Storage();
+
+        void add(final int position, final String label) {
+            mStorage.addSection(position, label);
+        }
+
+        SectionIndex build(final int itemCount) {
+            mStorage.itemCount = itemCount;
+            return new SectionIndex(mStorage);
+        }
+    }
+
+    /**
+     * Returns an empty index, the starting point of {@link SectionIndexBuilder}.
+     */
+    static SectionIndex empty() {
+        return new SectionIndex(new Storage());
+    }
+
+    /**
+     * Returns an index extended with sections computed elsewhere for the positions from {@link #getItemCount()} to the given count.
+     * <p/>
+     *
+     * @param starts          the first position of every section of the range, ascending
+     * @param labels          the label of every section of the range
+     * @param sectionCount    the number of sections of the range
+     * @param scrollPositions the scroll positions of the range, indexed from the current item count, or null if they map to themselves
+     * @param itemCount       the new number of items
+     */
+    SectionIndex appendSections(final int[] starts, final String[] labels, final int sectionCount, final int[] scrollPositions, final int itemCount) {
+        final Storage storage = writableStorage();
+        for (int i = 0; i < sectionCount; i++)
+            storage.addSection(starts[i], labels[i]);
+        if (scrollPositions != null) {
+            for (int position = mItemCount; position < itemCount; position++)
+                storage.setScrollPosition(position, scrollPositions[position - mItemCount], itemCount);
+        } else if (storage.scrollPositions != null) {
+            for (int position = mItemCount; position < itemCount; position++)
+                storage.setScrollPosition(position, position, itemCount);
+        }
+        storage.itemCount = itemCount;
+        return new SectionIndex(storage);
+    }
+
+    /**
+     * Returns storage this snapshot can be extended in: the shared one if no other snapshot has written past this one yet, a copy otherwise.
+     */
+    private Storage writableStorage() {
+        if (mStorage.itemCount == mItemCount && mStorage.sectionCount == mSectionCount && mStorage.labelCount == mLabelCount)
+            return mStorage;
+        return mStorage.copy(mItemCount, mSectionCount, mLabelCount);
+    }
+
+    /**
+     * Returns a snapshot equal to this one in storage of its own, which can be extended on another thread.
+     */
+    SectionIndex copy() {
+        return new SectionIndex(mStorage.copy(mItemCount, mSectionCount, mLabelCount));
+    }
+
+    private static boolean equal(final String a, final String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Returns the number of items the index was built for.
+     */
+    public int getItemCount() {
+        return mItemCount;
+    }
+
+    /**
+     * Returns the number of sections.
+     */
+    public int getSectionCount() {
+        return mSectionCount;
+    }
+
+    /**
+     * Returns the section containing the given position.
+     * <p/>
+     *
+     * @param position the position in the list, clamped to the indexed range
+     */
+    public int getSectionForPosition(final int position) {
+        if (mSectionCount == 0)
+            return -1;
+        int low = 0;
+        int high = mSectionCount - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (mStarts[mid] <= position)
+                low = mid;
+            else
+                high = mid - 1;
+        }
+        return low;
+    }
+
+    /**
+     * Returns the first position of the given section.
+     */
+    public int getPositionForSection(final int section) {
+        return mStarts[section];
+    }
+
+    /**
+     * Returns the label id of the given section. Sections sharing the same text share the same id.
+     */
+    public int getLabelId(final int section) {
+        return mLabelIds[section];
+    }
+
+    /**
+     * Returns the text of the given label id.
+     */
+    public String getLabelForId(final int labelId) {
+        return mLabels[labelId];
+    }
+
+    /**
+     * Returns the indicator text of the given section.
+     */
+    public String getLabel(final int section) {
+        return mLabels[mLabelIds[section]];
+    }
+
+    /**
+     * Returns the number of distinct labels.
+     */
+    public int getLabelCount() {
+        return mLabelCount;
+    }
+
+    /**
+     * Returns the position the list should jump to when the given position is touched, as reported by {@link Scrollable#getScrollPosition(int, int)} at build time.
+     */
+    public int getScrollPosition(final int position) {
+        return mScrollPositions == null ? position : mScrollPositions[position];
+    }
+}
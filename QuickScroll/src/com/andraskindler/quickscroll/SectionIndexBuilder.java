@@ -0,0 +1,205 @@
+package com.andraskindler.quickscroll;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Builds a {@link SectionIndex} on background threads, for adapters too large to index on the main thread.
+ * <p/>
+ * The position range is split into chunks that are indexed in parallel and merged in order. Every time the indexed prefix grows, a snapshot covering it is published on the main thread, so QuickScroll can use it while the rest is still being built.
+ * The Scrollable is queried from the worker threads, so its getIndicatorForPosition() and getScrollPosition() must be safe to call concurrently, e.g. by only reading data that does not change during the build.
+ */
+public final class SectionIndexBuilder {
+
+    /**
+     * Receives the snapshots of the build on the main thread.
+     */
+    public interface Callback {
+
+        /**
+         * @param index    the index of the positions processed so far
+         * @param complete true if the index covers all positions
+         */
+        void onSectionIndexUpdated(SectionIndex index, boolean complete);
+    }
+
+    private static final int MIN_CHUNK_SIZE = 4096;
+    private static final int CANCEL_CHECK_INTERVAL = 1024;
+    private static ExecutorService sExecutor;
+
+    private final Scrollable mScrollable;
+    private final int mFrom;
+    private final int mItemCount;
+    private final Callback mCallback;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private volatile boolean mCancelled;
+
+    // merge state, guarded by this
+    private Chunk[] mChunks;
+    private int mNextChunk;
+    private SectionIndex mIndex;
+
+    /**
+     * The sections of a range of positions.
+     */
+    private static final class Chunk {
+        final int to;
+        int[] starts = new int[16];
+        String[] labels = new String[16];
+        int sectionCount;
+        int[] scrollPositions;
+
+        Chunk(final int to) {
+            this.to = to;
+        }
+    }
+
+    /**
+     * @param scrollable the adapter, must implement Scrollable interface
+     * @param itemCount  the number of items in the list
+     * @param callback   receives the snapshots on the main thread
+     */
+    public SectionIndexBuilder(final Scrollable scrollable, final int itemCount, final Callback callback) {
+        this(scrollable, SectionIndex.empty(), itemCount, callback);
+    }
+
+    /**
+     * Builds an index extending the given one, e.g. after items were appended to the list. Only the positions past the base are queried.
+     * <p/>
+     *
+     * @param scrollable the adapter, must implement Scrollable interface
+     * @param base       the index of the unchanged first positions; it is copied, so the snapshots do not share storage with it
+     * @param itemCount  the number of items in the list, not less than the item count of the base
+     * @param callback   receives the snapshots on the main thread
+     */
+    public SectionIndexBuilder(final Scrollable scrollable, final SectionIndex base, final int itemCount, final Callback callback) {
+        mScrollable = scrollable;
+        mIndex = base.copy();
+        mFrom = base.getItemCount();
+        mItemCount = itemCount;
+        mCallback = callback;
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if (sExecutor == null) {
+            final int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            sExecutor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(new Runnable() {
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, "QuickScroll index");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sExecutor;
+    }
+
+    /**
+     * Starts the build. Must be called on the main thread, at most once.
+     */
+    public void start() {
+        if (mItemCount <= mFrom) {
+            mCallback.onSectionIndexUpdated(mIndex, true);
+            return;
+        }
+        final int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        final int chunkSize = Math.max(MIN_CHUNK_SIZE, (mItemCount - mFrom) / (threads * 8));
+        final int chunkCount = (mItemCount - mFrom + chunkSize - 1) / chunkSize;
+        mChunks = new Chunk[chunkCount];
+        final ExecutorService executor = getExecutor();
+        for (int i = 0; i < chunkCount; i++) {
+            final int chunk = i;
+            final int from = mFrom + i * chunkSize;
+            final int to = Math.min(mItemCount, from + chunkSize);
+            executor.execute(new Runnable() {
+                public void run() {
+                    if (mCancelled)
+                        return;
+                    final Chunk result = index(from, to);
+                    if (result != null)
+                        onChunkIndexed(chunk, result);
+                }
+            });
+        }
+    }
+
+    /**
+     * Stops the build; no more snapshots are published. Chunks already running stop at their next check.
+     */
+    public void cancel() {
+        mCancelled = true;
+        mHandler.removeCallbacksAndMessages(null);
+    }
+
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    private Chunk index(final int from, final int to) {
+        final Chunk chunk = new Chunk(to);
+        String last = null;
+        for (int position = from; position < to; position++) {
+            if ((position - from) % CANCEL_CHECK_INTERVAL == 0 && mCancelled)
+                return null;
+            final String label = mScrollable.getIndicatorForPosition(position, -1);
+            if (position == from || !(label == null ? last == null : label.equals(last))) {
+                if (chunk.sectionCount == chunk.starts.length) {
+                    chunk.starts = Arrays.copyOf(chunk.starts, chunk.sectionCount * 2);
+                    chunk.labels = Arrays.copyOf(chunk.labels, chunk.sectionCount * 2);
+                }
+                chunk.starts[chunk.sectionCount] = position;
+                chunk.labels[chunk.sectionCount] = label;
+                chunk.sectionCount++;
+                last = label;
+            }
+            final int scrollPosition = mScrollable.getScrollPosition(position, -1);
+            if (chunk.scrollPositions == null && scrollPosition != position) {
+                chunk.scrollPositions = new int[to - from];
+                for (int i = from; i < position; i++)
+                    chunk.scrollPositions[i - from] = i;
+            }
+            if (chunk.scrollPositions != null)
+                chunk.scrollPositions[position - from] = scrollPosition;
+        }
+        return chunk;
+    }
+
+    /**
+     * Merges every chunk that now continues the indexed prefix and publishes the grown snapshot.
+     */
+    private void onChunkIndexed(final int chunk, final Chunk result) {
+        synchronized (this) {
+            if (mCancelled)
+                return;
+            mChunks[chunk] = result;
+            if (chunk != mNextChunk)
+                return;
+            while (mNextChunk < mChunks.length && mChunks[mNextChunk] != null) {
+                final Chunk next = mChunks[mNextChunk];
+                mIndex = mIndex.appendSections(next.starts, next.labels, next.sectionCount, next.scrollPositions, next.to);
+                mChunks[mNextChunk] = null;
+                mNextChunk++;
+            }
+            // posted while holding the lock, so snapshots arrive in the order they grew
+            final SectionIndex snapshot = mIndex;
+            final boolean complete = mNextChunk == mChunks.length;
+            mHandler.post(new Runnable() {
+                public void run() {
+                    if (!mCancelled)
+                        mCallback.onSectionIndexUpdated(snapshot, complete);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.andraskindler.quickscroll;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Sections of a list sorted by time, bucketed by day, week or month. The bucket boundaries are computed in one pass over the timestamps and every label is formatted once, so indicator lookups are a binary search over the bucket starts.
+ * <p/>
+ * Adapters can delegate their {@link Scrollable} methods to it, or pass {@link #toSectionIndex()} to QuickScroll.
+ */
+public final class TimeSectionIndexer extends PrecomputedSections {
+
+    public static final int BUCKET_DAY = 0;
+    public static final int BUCKET_WEEK = 1;
+    public static final int BUCKET_MONTH = 2;
+
+    /**
+     * Buckets the timestamps with a default label pattern: "yyyy MMMM dd" for days, "'Week of' MMM dd, yyyy" for weeks and "MMMM yyyy" for months.
+     * <p/>
+     *
+     * @param times    epoch milliseconds of every position, ascending
+     * @param bucket   BUCKET_DAY, BUCKET_WEEK or BUCKET_MONTH
+     * @param locale   the locale of the labels and the first day of the week
+     * @param timeZone the time zone bucket boundaries are computed in
+     */
+    public TimeSectionIndexer(final long[] times, final int bucket, final Locale locale, final TimeZone timeZone) {
+        this(times, bucket, getDefaultPattern(bucket), locale, timeZone);
+    }
+
+    /**
+     * @param times    epoch milliseconds of every position, ascending
+     * @param bucket   BUCKET_DAY, BUCKET_WEEK or BUCKET_MONTH
+     * @param pattern  the SimpleDateFormat pattern of the labels, applied to the start of every bucket
+     * @param locale   the locale of the labels and the first day of the week
+     * @param timeZone the time zone bucket boundaries are computed in
+     */
+    public TimeSectionIndexer(final long[] times, final int bucket, final String pattern, final Locale locale, final TimeZone timeZone) {
+        super(index(times, bucket, pattern, locale, timeZone));
+    }
+
+    private static SectionIndex index(final long[] times, final int bucket, final String pattern, final Locale locale, final TimeZone timeZone) {
+        if (bucket < BUCKET_DAY || bucket > BUCKET_MONTH)
+            throw new IllegalArgumentException("unknown bucket: " + bucket);
+        final SectionIndex.Sections sections = new SectionIndex.Sections();
+        final Calendar calendar = Calendar.getInstance(timeZone, locale);
+        final SimpleDateFormat format = new SimpleDateFormat(pattern, locale);
+        format.setTimeZone(timeZone);
+        final Date date = new Date();
+        long end = Long.MIN_VALUE;
+        for (int position = 0; position < times.length; position++) {
+            if (times[position] < end)
+                continue;
+            calendar.setTimeInMillis(times[position]);
+            truncate(calendar, bucket);
+            date.setTime(calendar.getTimeInMillis());
+            sections.add(position, format.format(date));
+            next(calendar, bucket);
+            // keeping the wall time of a bucket that started late, e.g. at 01:00 where daylight saving time starts at midnight, would overshoot the next start
+            truncate(calendar, bucket);
+            end = calendar.getTimeInMillis();
+        }
+        return sections.build(times.length);
+    }
+
+    private static String getDefaultPattern(final int bucket) {
+        switch (bucket) {
+            case BUCKET_WEEK:
+                return "'Week of' MMM dd, yyyy";
+            case BUCKET_MONTH:
+                return "MMMM yyyy";
+            default:
+                return "yyyy MMMM dd";
+        }
+    }
+
+    /**
+     * Moves the calendar to the start of its bucket.
+     */
+    private static void truncate(final Calendar calendar, final int bucket) {
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        if (bucket == BUCKET_WEEK)
+            calendar.add(Calendar.DAY_OF_MONTH, -((calendar.get(Calendar.DAY_OF_WEEK) - calendar.getFirstDayOfWeek() + 7) % 7));
+        else if (bucket == BUCKET_MONTH)
+            calendar.set(Calendar.DAY_OF_MONTH, 1);
+    }
+
+    /**
+     * Moves the calendar from the start of a bucket to the start of the next one.
+     */
+    private static void next(final Calendar calendar, final int bucket) {
+        if (bucket == BUCKET_DAY)
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+        else if (bucket == BUCKET_WEEK)
+            calendar.add(Calendar.DAY_OF_MONTH, 7);
+        else
+            calendar.add(Calendar.MONTH, 1);
+    }
+}
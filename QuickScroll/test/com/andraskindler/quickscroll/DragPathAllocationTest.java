@@ -0,0 +1,78 @@
+package com.andraskindler.quickscroll;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Feeds thousands of synthetic moves through the DragResolver QuickScroll.scroll() resolves every ACTION_MOVE with, fraction to position, label id and list position, and counts the bytes allocated meanwhile.
+ */
+public class DragPathAllocationTest {
+
+    private static final int MOVES = 20000;
+    private static final int HEIGHT = 1920;
+
+    private int mChecksum;
+
+    private static com.sun.management.ThreadMXBean getAllocationCounter() {
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(counter.isThreadAllocatedMemorySupported());
+        counter.setThreadAllocatedMemoryEnabled(true);
+        return counter;
+    }
+
+    /**
+     * Drags down and up the whole scrollbar, one pixel per move.
+     */
+    private void drag(final DragResolver resolver, final LabelPool pool) {
+        for (int move = 0; move < MOVES; move++) {
+            final int pixel = move % (2 * HEIGHT);
+            final float height = pixel < HEIGHT ? pixel : 2 * HEIGHT - pixel - 1;
+            final int position = resolver.getPosition((double) height / HEIGHT);
+            if (resolver.resolve(position, 0) != 0) {
+                final int id = resolver.getLabelId();
+                mChecksum += pool.getChars()[pool.getStart(id)] + pool.getLength(id) + resolver.getScrollPosition();
+            }
+        }
+    }
+
+    private long countDragAllocations(final DragResolver resolver, final LabelPool pool) {
+        final com.sun.management.ThreadMXBean counter = getAllocationCounter();
+        // the first passes intern every label and warm up the JIT
+        for (int i = 0; i < 5; i++)
+            drag(resolver, pool);
+
+        final long thread = Thread.currentThread().getId();
+        final long before = counter.getThreadAllocatedBytes(thread);
+        drag(resolver, pool);
+        return counter.getThreadAllocatedBytes(thread) - before;
+    }
+
+    @Test
+    public void movesDoNotAllocateOnceTheLabelsArePooled() {
+        final Labels labels = Labels.runs(100000, 250);
+        final SectionIndex index = SectionIndex.build(labels, labels.size());
+        final LabelPool pool = new LabelPool();
+        final DragResolver resolver = new DragResolver(pool);
+        resolver.setSource(labels, null, index, null, labels.size());
+
+        assertEquals("bytes allocated by " + MOVES + " moves", 0, countDragAllocations(resolver, pool));
+        assertEquals(index.getLabelCount(), pool.size());
+    }
+
+    @Test
+    public void movesWithoutAnIndexDoNotAllocateOnceTheLabelsArePooled() {
+        final Labels labels = Labels.runs(100000, 250);
+        final LabelPool pool = new LabelPool();
+        final DragResolver resolver = new DragResolver(pool);
+        resolver.setSource(labels, null, null, new RowHeightIndex(labels.size(), 48), labels.size());
+
+        assertEquals("bytes allocated by " + MOVES + " moves", 0, countDragAllocations(resolver, pool));
+    }
+}
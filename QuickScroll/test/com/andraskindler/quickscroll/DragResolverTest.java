@@ -0,0 +1,78 @@
+package com.andraskindler.quickscroll;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DragResolverTest {
+
+    private static String labelOf(final DragResolver resolver, final LabelPool pool) {
+        final int id = resolver.getLabelId();
+        return new String(pool.getChars(), pool.getStart(id), pool.getLength(id));
+    }
+
+    @Test
+    public void clampsTheFractionToTheList() {
+        final Labels labels = Labels.runs(10, 5);
+        final DragResolver resolver = new DragResolver(new LabelPool());
+        resolver.setSource(labels, null, null, null, labels.size());
+
+        assertEquals(0, resolver.getPosition(-0.5));
+        assertEquals(4, resolver.getPosition(0.45));
+        assertEquals(9, resolver.getPosition(1));
+        assertEquals(9, resolver.getPosition(1.5));
+    }
+
+    @Test
+    public void emptyListHasNoPosition() {
+        final DragResolver resolver = new DragResolver(new LabelPool());
+        resolver.setSource(new Labels(), null, null, null, 0);
+        assertEquals(-1, resolver.getPosition(0.5));
+
+        resolver.setSource(new Labels("a"), new int[0], null, null, 1);
+        assertEquals(-1, resolver.getPosition(0.5));
+    }
+
+    @Test
+    public void mapsSectionIndexerSectionsToTheirFirstPosition() {
+        final DragResolver resolver = new DragResolver(new LabelPool());
+        resolver.setSource(Labels.runs(30, 10), new int[]{0, 10, 20}, null, null, 30);
+
+        final int section = resolver.getPosition(0.5);
+        assertEquals(1, section);
+        resolver.resolve(section, 0);
+        assertEquals(10, resolver.getScrollPosition());
+    }
+
+    @Test
+    public void reportsOnlyWhatChanged() {
+        final Labels labels = new Labels("a", "a", "b", "b");
+        final LabelPool pool = new LabelPool();
+        final DragResolver resolver = new DragResolver(pool);
+        resolver.setSource(labels, null, SectionIndex.build(labels, labels.size()), null, labels.size());
+
+        assertEquals(DragResolver.LABEL_CHANGED | DragResolver.POSITION_CHANGED, resolver.resolve(0, 0));
+        assertEquals("a", labelOf(resolver, pool));
+        assertEquals(0, resolver.resolve(0, 0));
+        assertEquals(DragResolver.POSITION_CHANGED, resolver.resolve(1, 0));
+        assertEquals(DragResolver.LABEL_CHANGED | DragResolver.POSITION_CHANGED, resolver.resolve(2, 0));
+        assertEquals("b", labelOf(resolver, pool));
+
+        resolver.invalidate();
+        assertEquals(DragResolver.LABEL_CHANGED | DragResolver.POSITION_CHANGED, resolver.resolve(2, 0));
+        resolver.invalidateLabel();
+        assertEquals(DragResolver.LABEL_CHANGED, resolver.resolve(2, 0));
+    }
+
+    @Test
+    public void fallsBackToTheScrollableBeyondTheIndexedRows() {
+        final Labels labels = new Labels("a", "a", "b", "c");
+        final LabelPool pool = new LabelPool();
+        final DragResolver resolver = new DragResolver(pool);
+        resolver.setSource(labels, null, SectionIndex.build(labels, 2), null, labels.size());
+
+        resolver.resolve(3, 0);
+        assertEquals("c", labelOf(resolver, pool));
+        assertEquals(3, resolver.getScrollPosition());
+    }
+}
@@ -0,0 +1,56 @@
+package com.andraskindler.quickscroll;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+public class LabelPoolTest {
+
+    private static String charsOf(final LabelPool pool, final int id) {
+        return new String(pool.getChars(), pool.getStart(id), pool.getLength(id));
+    }
+
+    @Test
+    public void internReturnsTheSameIdForEqualLabels() {
+        final LabelPool pool = new LabelPool();
+        final int a = pool.intern("A");
+        final int b = pool.intern("B");
+        assertEquals(a, pool.intern(new String("A")));
+        assertEquals(b, pool.intern("B"));
+        assertEquals(2, pool.size());
+    }
+
+    @Test
+    public void nullIsInternedAsTheEmptyLabel() {
+        final LabelPool pool = new LabelPool();
+        final int id = pool.intern(null);
+        assertEquals(id, pool.intern(""));
+        assertEquals(0, pool.getLength(id));
+    }
+
+    @Test
+    public void rangesHoldTheLabelsAfterTheArraysGrow() {
+        final LabelPool pool = new LabelPool();
+        for (int i = 0; i < 1000; i++)
+            assertEquals(i, pool.intern("label " + i));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("label " + i, charsOf(pool, i));
+            assertEquals("label " + i, pool.getLabel(i));
+        }
+    }
+
+    @Test
+    public void clearKeepsTheArrayOfShownLabelsUnchanged() {
+        final LabelPool pool = new LabelPool();
+        final int id = pool.intern("Shown");
+        final char[] shown = pool.getChars();
+        final int start = pool.getStart(id);
+
+        pool.clear();
+        assertEquals(0, pool.size());
+        assertEquals(0, pool.intern("Other"));
+        assertNotSame(shown, pool.getChars());
+        assertEquals("Shown", new String(shown, start, 5));
+    }
+}
@@ -0,0 +1,35 @@
+package com.andraskindler.quickscroll;
+
+/**
+ * A Scrollable over a fixed array of labels, where every position scrolls to itself.
+ */
+final class Labels implements Scrollable {
+
+    private final String[] mLabels;
+
+    Labels(final String... labels) {
+        mLabels = labels;
+    }
+
+    /**
+     * Returns the labels of count positions in runs of the given length: "0" for the first run, "1" for the next and so on.
+     */
+    static Labels runs(final int count, final int runLength) {
+        final String[] labels = new String[count];
+        for (int position = 0; position < count; position++)
+            labels[position] = String.valueOf(position / runLength);
+        return new Labels(labels);
+    }
+
+    int size() {
+        return mLabels.length;
+    }
+
+    public String getIndicatorForPosition(final int childposition, final int groupposition) {
+        return mLabels[childposition];
+    }
+
+    public int getScrollPosition(final int childposition, final int groupposition) {
+        return childposition;
+    }
+}
@@ -0,0 +1,36 @@
+package com.andraskindler.quickscroll;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class NumericSectionIndexerTest {
+
+    @Test
+    public void fixedWidthBucketsKeysOnTheirBounds() {
+        final NumericSectionIndexer indexer = NumericSectionIndexer.fixedWidth(new double[]{0.25, 0.3, 0.35, 0.7}, 0.1, NumericSectionIndexer.RANGE_FORMATTER);
+        assertEquals(3, indexer.getSectionCount());
+        assertEquals("0.2–0.3", indexer.getLabel(0));
+        assertEquals("0.3–0.4", indexer.getLabel(1));
+        assertEquals(1, indexer.getPositionForSection(1));
+        assertEquals("0.7–0.8", indexer.getIndicatorForPosition(3, -1));
+    }
+
+    @Test
+    public void fixedWidthLabelsNegativeRanges() {
+        final NumericSectionIndexer indexer = NumericSectionIndexer.fixedWidth(new int[]{-25, -12, -10, 1998}, 10, NumericSectionIndexer.RANGE_FORMATTER);
+        assertEquals(4, indexer.getSectionCount());
+        assertEquals("-30–-20", indexer.getLabel(0));
+        assertEquals("-20–-10", indexer.getLabel(1));
+        assertEquals("-10–0", indexer.getLabel(2));
+        assertEquals("1990–2000", indexer.getLabel(3));
+    }
+
+    @Test
+    public void quantilesDoNotSplitEqualKeys() {
+        final NumericSectionIndexer indexer = NumericSectionIndexer.quantiles(new long[]{1, 2, 2, 2, 2, 3, 4, 5}, 4, NumericSectionIndexer.RANGE_FORMATTER);
+        assertEquals(indexer.getSectionForPosition(1), indexer.getSectionForPosition(4));
+        assertEquals("1–2", indexer.getLabel(indexer.getSectionForPosition(4)));
+        assertEquals(8, indexer.toSectionIndex().getItemCount());
+    }
+}
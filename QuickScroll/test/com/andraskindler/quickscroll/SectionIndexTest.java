@@ -0,0 +1,81 @@
+package com.andraskindler.quickscroll;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class SectionIndexTest {
+
+    private static void assertSameSections(final SectionIndex expected, final SectionIndex actual) {
+        assertEquals(expected.getItemCount(), actual.getItemCount());
+        assertEquals(expected.getSectionCount(), actual.getSectionCount());
+        for (int section = 0; section < expected.getSectionCount(); section++) {
+            assertEquals(expected.getPositionForSection(section), actual.getPositionForSection(section));
+            assertEquals(expected.getLabel(section), actual.getLabel(section));
+        }
+    }
+
+    @Test
+    public void buildSplitsRunsOfEqualLabels() {
+        final SectionIndex index = SectionIndex.build(new Labels("A", "A", "B", "C", "C", "C", "A"), 7);
+        assertEquals(4, index.getSectionCount());
+        assertEquals(0, index.getPositionForSection(0));
+        assertEquals(2, index.getPositionForSection(1));
+        assertEquals(3, index.getPositionForSection(2));
+        assertEquals(6, index.getPositionForSection(3));
+        // the two runs of "A" share a label id
+        assertEquals(3, index.getLabelCount());
+        assertEquals(index.getLabelId(0), index.getLabelId(3));
+    }
+
+    @Test
+    public void lookupsResolveEveryPosition() {
+        final Labels labels = Labels.runs(10000, 37);
+        final SectionIndex index = SectionIndex.build(labels, labels.size());
+        for (int position = 0; position < labels.size(); position++) {
+            assertEquals(labels.getIndicatorForPosition(position, -1), index.getLabel(index.getSectionForPosition(position)));
+            assertEquals(position, index.getScrollPosition(position));
+        }
+    }
+
+    @Test
+    public void emptyIndexHasNoSections() {
+        final SectionIndex index = SectionIndex.build(new Labels(), 0);
+        assertEquals(0, index.getSectionCount());
+        assertEquals(-1, index.getSectionForPosition(0));
+    }
+
+    @Test
+    public void buildSortedMatchesBuild() {
+        for (int runLength : new int[]{1, 2, 7, 1000, 5000}) {
+            final Labels labels = Labels.runs(20000, runLength);
+            assertSameSections(SectionIndex.build(labels, labels.size()), SectionIndex.buildSorted(labels, labels.size()));
+        }
+    }
+
+    @Test
+    public void appendMatchesBuildAndLeavesTheOriginalUnchanged() {
+        final Labels labels = Labels.runs(5000, 13);
+        final SectionIndex prefix = SectionIndex.build(labels, 2000);
+        final int sections = prefix.getSectionCount();
+
+        final SectionIndex appended = prefix.append(labels, 5000);
+        assertSameSections(SectionIndex.build(labels, 5000), appended);
+        assertEquals(2000, prefix.getItemCount());
+        assertEquals(sections, prefix.getSectionCount());
+        assertSame(appended, appended.append(labels, 5000));
+    }
+
+    @Test
+    public void sectionsMergeEqualNeighbours() {
+        final SectionIndex.Sections sections = new SectionIndex.Sections();
+        sections.add(0, "A");
+        sections.add(4, "A");
+        sections.add(9, "B");
+        final SectionIndex index = sections.build(12);
+        assertEquals(2, index.getSectionCount());
+        assertEquals(9, index.getPositionForSection(1));
+        assertEquals(1, index.getSectionForPosition(11));
+    }
+}
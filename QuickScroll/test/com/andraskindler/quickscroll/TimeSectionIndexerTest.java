@@ -0,0 +1,48 @@
+package com.andraskindler.quickscroll;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+public class TimeSectionIndexerTest {
+
+    // daylight saving time started at midnight on 2018-11-04, so that day began at 01:00
+    private static final TimeZone SAO_PAULO = TimeZone.getTimeZone("America/Sao_Paulo");
+
+    private static long time(final int year, final int month, final int day, final int hour, final int minute) {
+        final Calendar calendar = Calendar.getInstance(SAO_PAULO, Locale.US);
+        calendar.clear();
+        calendar.set(year, month, day, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+
+    @Test
+    public void bucketsDaysByLocalDate() {
+        final long[] times = {time(2018, Calendar.NOVEMBER, 3, 23, 30), time(2018, Calendar.NOVEMBER, 4, 12, 0), time(2018, Calendar.NOVEMBER, 6, 8, 0)};
+        final TimeSectionIndexer indexer = new TimeSectionIndexer(times, TimeSectionIndexer.BUCKET_DAY, "yyyy-MM-dd", Locale.US, SAO_PAULO);
+        assertEquals(3, indexer.getSectionCount());
+        assertEquals("2018-11-06", indexer.getIndicatorForPosition(2, -1));
+    }
+
+    @Test
+    public void dayAfterADaylightSavingGapStartsAtMidnight() {
+        final long[] times = {time(2018, Calendar.NOVEMBER, 4, 12, 0), time(2018, Calendar.NOVEMBER, 5, 0, 30)};
+        final TimeSectionIndexer indexer = new TimeSectionIndexer(times, TimeSectionIndexer.BUCKET_DAY, "yyyy-MM-dd", Locale.US, SAO_PAULO);
+        assertEquals(2, indexer.getSectionCount());
+        assertEquals("2018-11-04", indexer.getIndicatorForPosition(0, -1));
+        assertEquals("2018-11-05", indexer.getIndicatorForPosition(1, -1));
+    }
+
+    @Test
+    public void weekAfterADaylightSavingGapStartsAtMidnight() {
+        final long[] times = {time(2018, Calendar.NOVEMBER, 10, 12, 0), time(2018, Calendar.NOVEMBER, 11, 0, 30)};
+        final TimeSectionIndexer indexer = new TimeSectionIndexer(times, TimeSectionIndexer.BUCKET_WEEK, "yyyy-MM-dd", Locale.US, SAO_PAULO);
+        assertEquals(2, indexer.getSectionCount());
+        assertEquals("2018-11-04", indexer.getIndicatorForPosition(0, -1));
+        assertEquals("2018-11-11", indexer.getIndicatorForPosition(1, -1));
+    }
+}
@@ -0,0 +1,70 @@
+package com.andraskindler.quickscroll.benchmark;
+
+import com.andraskindler.quickscroll.RowHeightIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Flat position to group resolution of an ExpandableListView: walking the expanded groups like ExpandableListConnector does, against a binary search over group start offsets and the prefix-sum tree QuickScroll keeps of the group sizes.
+ */
+@State(Scope.Thread)
+public class ExpandableGroupBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int groups;
+
+    private TouchTrace mTrace;
+    private int[] mFlatSizes;
+    private int[] mGroupStarts;
+    private int mFlatCount;
+    private RowHeightIndex mGroupSizes;
+
+    @Setup
+    public void setUp() {
+        mTrace = new TouchTrace();
+        final Random random = new Random(3);
+        mFlatSizes = new int[groups];
+        mGroupStarts = new int[groups];
+        mGroupSizes = new RowHeightIndex(groups, 1);
+        for (int i = 0; i < groups; i++) {
+            // the group row itself, plus its children if expanded
+            mFlatSizes[i] = 1 + (random.nextBoolean() ? random.nextInt(100) : 0);
+            mGroupStarts[i] = mFlatCount;
+            mFlatCount += mFlatSizes[i];
+            mGroupSizes.setHeight(i, mFlatSizes[i]);
+        }
+    }
+
+    private int nextPosition() {
+        return (int) (mTrace.next() / TouchTrace.TRACK_HEIGHT * (mFlatCount - 1));
+    }
+
+    @Benchmark
+    public int linearWalk() {
+        int remaining = nextPosition();
+        for (int group = 0; group < groups; group++) {
+            if (remaining < mFlatSizes[group])
+                return group;
+            remaining -= mFlatSizes[group];
+        }
+        return groups - 1;
+    }
+
+    @Benchmark
+    public int binarySearch() {
+        final int index = Arrays.binarySearch(mGroupStarts, nextPosition());
+        return index >= 0 ? index : -index - 2;
+    }
+
+    @Benchmark
+    public int prefixSumTree() {
+        return mGroupSizes.getPosition(nextPosition());
+    }
+}
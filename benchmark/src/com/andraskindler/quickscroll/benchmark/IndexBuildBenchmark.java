@@ -0,0 +1,36 @@
+package com.andraskindler.quickscroll.benchmark;
+
+import com.andraskindler.quickscroll.SectionIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Building the section index of a sorted list: one adapter call per row, against sampling and binary search between the samples.
+ */
+@State(Scope.Thread)
+public class IndexBuildBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private SyntheticScrollable mScrollable;
+
+    @Setup
+    public void setUp() {
+        mScrollable = new SyntheticScrollable(rows);
+    }
+
+    @Benchmark
+    public SectionIndex fullScan() {
+        return SectionIndex.build(mScrollable, rows);
+    }
+
+    @Benchmark
+    public SectionIndex sampled() {
+        return SectionIndex.buildSorted(mScrollable, rows);
+    }
+}
@@ -0,0 +1,128 @@
+package com.andraskindler.quickscroll.benchmark;
+
+import com.andraskindler.quickscroll.LabelPool;
+import com.andraskindler.quickscroll.NumericSectionIndexer;
+import com.andraskindler.quickscroll.SectionIndex;
+import com.andraskindler.quickscroll.TimeSectionIndexer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Label generation strategies of the sample adapters, against a lookup in a prebuilt index.
+ */
+@State(Scope.Thread)
+public class LabelBenchmark {
+
+    private static final String DATE_PATTERN = "yyyy MMMM dd'\n'EEEE";
+    private static final long HOUR = 3600 * 1000;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    private TouchTrace mTrace;
+    private String[] mTitles;
+    private long mStart;
+    private SimpleDateFormat mFormat;
+    private SectionIndex mIndex;
+    private LabelPool mPool;
+    private char[] mBuffer;
+    private TimeSectionIndexer mTimeIndexer;
+    private int[] mYears;
+    private NumericSectionIndexer mYearIndexer;
+
+    @Setup
+    public void setUp() {
+        mTrace = new TouchTrace();
+        mTitles = new String[1024];
+        for (int i = 0; i < mTitles.length; i++)
+            mTitles[i] = (char) ('A' + i % 26) + "title" + i;
+        mStart = new GregorianCalendar(2013, 0, 1).getTimeInMillis();
+        mFormat = new SimpleDateFormat(DATE_PATTERN, Locale.US);
+        mIndex = SectionIndex.build(new SyntheticScrollable(rows), rows);
+        mPool = new LabelPool();
+        mBuffer = new char[64];
+        final long[] times = new long[rows];
+        for (int i = 0; i < rows; i++)
+            times[i] = mStart + i * 2 * HOUR;
+        mTimeIndexer = new TimeSectionIndexer(times, TimeSectionIndexer.BUCKET_DAY, DATE_PATTERN, Locale.US, TimeZone.getDefault());
+        mYears = new int[rows];
+        for (int i = 0; i < rows; i++)
+            mYears[i] = 1940 + (int) ((long) i * 80 / rows);
+        mYearIndexer = NumericSectionIndexer.fixedWidth(mYears, 10, NumericSectionIndexer.RANGE_FORMATTER);
+    }
+
+    private int nextPosition() {
+        return (int) (mTrace.next() / TouchTrace.TRACK_HEIGHT * (rows - 1));
+    }
+
+    /**
+     * MarvelMovie.getIndicator(): two characters concatenated.
+     */
+    @Benchmark
+    public String concatenatedCharacters() {
+        final String title = mTitles[nextPosition() & 1023];
+        return Character.toString(title.charAt(0)) + Character.toString(title.charAt(1));
+    }
+
+    /**
+     * Event.getDateString(): a new SimpleDateFormat per call.
+     */
+    @Benchmark
+    public String dateFormatPerCall() {
+        final GregorianCalendar calendar = new GregorianCalendar();
+        calendar.setTimeInMillis(mStart + nextPosition() * 2 * HOUR);
+        return new SimpleDateFormat(DATE_PATTERN, Locale.US).format(calendar.getTime());
+    }
+
+    @Benchmark
+    public String dateFormatCached() {
+        return mFormat.format(new Date(mStart + nextPosition() * 2 * HOUR));
+    }
+
+    /**
+     * EventAdapter: day buckets formatted once, looked up by binary search.
+     */
+    @Benchmark
+    public String timeSectionIndexer() {
+        return mTimeIndexer.getIndicatorForPosition(nextPosition(), -1);
+    }
+
+    /**
+     * A year column: a label built per call, against decade buckets labeled once.
+     */
+    @Benchmark
+    public String yearPerCall() {
+        final int decade = mYears[nextPosition()] / 10 * 10;
+        return decade + "-" + (decade + 10);
+    }
+
+    @Benchmark
+    public String numericSectionIndexer() {
+        return mYearIndexer.getIndicatorForPosition(nextPosition(), -1);
+    }
+
+    @Benchmark
+    public String sectionIndexLookup() {
+        return mIndex.getLabel(mIndex.getSectionForPosition(nextPosition()));
+    }
+
+    /**
+     * The indicator path of QuickScroll: the looked up label is interned and its chars are pushed to the view, here a copy into a buffer.
+     */
+    @Benchmark
+    public char[] sectionIndexToLabelPool() {
+        final int id = mPool.intern(mIndex.getLabel(mIndex.getSectionForPosition(nextPosition())));
+        System.arraycopy(mPool.getChars(), mPool.getStart(id), mBuffer, 0, mPool.getLength(id));
+        return mBuffer;
+    }
+}
@@ -0,0 +1,63 @@
+package com.andraskindler.quickscroll.benchmark;
+
+import com.andraskindler.quickscroll.RowHeightIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Y to position mapping of the drag path, and position to pixel mapping of the handlebar.
+ */
+@State(Scope.Thread)
+public class PositionMappingBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    private TouchTrace mTrace;
+    private RowHeightIndex mHeights;
+
+    @Setup
+    public void setUp() {
+        mTrace = new TouchTrace();
+        mHeights = new RowHeightIndex(rows, 48);
+        final Random random = new Random(7);
+        for (int i = 0; i < rows; i += 3)
+            mHeights.setHeight(i, 24 + random.nextInt(200));
+    }
+
+    /**
+     * The mapping of QuickScroll.scroll() without a row height index.
+     */
+    @Benchmark
+    public int uniformRows() {
+        final float height = mTrace.next();
+        int position = (int) ((height / TouchTrace.TRACK_HEIGHT) * rows);
+        if (position >= rows)
+            position = rows - 1;
+        return position;
+    }
+
+    @Benchmark
+    public int rowHeightIndex() {
+        final float height = mTrace.next();
+        return mHeights.getPosition((long) (height / TouchTrace.TRACK_HEIGHT * mHeights.getTotalHeight()));
+    }
+
+    @Benchmark
+    public long rowHeightIndexOffset() {
+        final int position = (int) (mTrace.next() / TouchTrace.TRACK_HEIGHT * rows);
+        return mHeights.getOffset(position);
+    }
+
+    @Benchmark
+    public void rowHeightIndexMeasure() {
+        final int position = (int) (mTrace.next() / TouchTrace.TRACK_HEIGHT * (rows - 1));
+        mHeights.setHeight(position, 24 + (position & 127));
+    }
+}
@@ -0,0 +1,83 @@
+package com.andraskindler.quickscroll.benchmark;
+
+import com.andraskindler.quickscroll.SectionIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Label and target position lookups of a single move event: calling the Scrollable, asking a SectionIndexer, or reading a SectionIndex.
+ */
+@State(Scope.Thread)
+public class SectionLookupBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    private TouchTrace mTrace;
+    private SyntheticScrollable mScrollable;
+    private SectionIndex mIndex;
+    private CopyingSectionIndexer mIndexer;
+
+    /**
+     * A SectionIndexer the way many are written: getSections() returns a fresh copy and positions are found by scanning.
+     */
+    static final class CopyingSectionIndexer {
+        private final String[] mSections;
+        private final int[] mPositions;
+
+        CopyingSectionIndexer(final SectionIndex index) {
+            mSections = new String[index.getSectionCount()];
+            mPositions = new int[index.getSectionCount()];
+            for (int i = 0; i < mSections.length; i++) {
+                mSections[i] = index.getLabel(i);
+                mPositions[i] = index.getPositionForSection(i);
+            }
+        }
+
+        Object[] getSections() {
+            return mSections.clone();
+        }
+
+        int getPositionForSection(final int section) {
+            for (int i = 0; i < mPositions.length; i++) {
+                if (i == section)
+                    return mPositions[i];
+            }
+            return mPositions[mPositions.length - 1];
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mTrace = new TouchTrace();
+        mScrollable = new SyntheticScrollable(rows);
+        mIndex = SectionIndex.build(mScrollable, rows);
+        mIndexer = new CopyingSectionIndexer(mIndex);
+    }
+
+    private int nextPosition() {
+        return (int) (mTrace.next() / TouchTrace.TRACK_HEIGHT * (rows - 1));
+    }
+
+    @Benchmark
+    public String scrollableCallback() {
+        return mScrollable.getIndicatorForPosition(nextPosition(), -1);
+    }
+
+    @Benchmark
+    public int sectionIndexerPerMove() {
+        final int sections = mIndexer.getSections().length;
+        final int section = (int) (mTrace.next() / TouchTrace.TRACK_HEIGHT * (sections - 1));
+        return mIndexer.getPositionForSection(section);
+    }
+
+    @Benchmark
+    public String sectionIndex() {
+        return mIndex.getLabel(mIndex.getSectionForPosition(nextPosition()));
+    }
+}
@@ -0,0 +1,23 @@
+package com.andraskindler.quickscroll.benchmark;
+
+import com.andraskindler.quickscroll.Scrollable;
+
+/**
+ * A Scrollable over a virtual list sorted by name: the rows are spread evenly over the letters of the alphabet and the label of a row is its initial, built on every call like ContactAdapter does.
+ */
+public final class SyntheticScrollable implements Scrollable {
+
+    private final int mCount;
+
+    public SyntheticScrollable(final int count) {
+        mCount = count;
+    }
+
+    public String getIndicatorForPosition(final int childposition, final int groupposition) {
+        return Character.toString((char) ('A' + (int) ((long) childposition * 26 / mCount)));
+    }
+
+    public int getScrollPosition(final int childposition, final int groupposition) {
+        return childposition;
+    }
+}
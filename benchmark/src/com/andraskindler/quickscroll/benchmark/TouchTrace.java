@@ -0,0 +1,27 @@
+package com.andraskindler.quickscroll.benchmark;
+
+import java.util.Random;
+
+/**
+ * A fixed pseudo-random sequence of touch heights, so every benchmark sees the same drag and the JIT cannot fold the input.
+ */
+final class TouchTrace {
+
+    static final int TRACK_HEIGHT = 1920;
+    private static final int LENGTH = 4096;
+
+    private final float[] mHeights = new float[LENGTH];
+    private int mNext;
+
+    TouchTrace() {
+        final Random random = new Random(42);
+        for (int i = 0; i < LENGTH; i++)
+            mHeights[i] = random.nextFloat() * TRACK_HEIGHT;
+    }
+
+    float next() {
+        final float height = mHeights[mNext];
+        mNext = (mNext + 1) & (LENGTH - 1);
+        return height;
+    }
+}
@@ -1,109 +1,71 @@
 package com.andraskindler.quickscrollsample.adapter;
 
-import java.util.SortedSet;
+import java.util.ArrayList;
+import java.util.List;
 
-import android.annotation.TargetApi;
-import android.content.Context;
-import android.os.Build;
 import android.util.TypedValue;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.BaseExpandableListAdapter;
 import android.widget.TextView;
 
-import com.andraskindler.quickscroll.Scrollable;
+import com.andraskindler.quickscroll.ExpandableScrollableAdapter;
 import com.andraskindler.quickscrollsample.model.Countries;
-import com.google.common.collect.Iterables;
 import com.google.common.collect.TreeMultimap;
 
-@TargetApi(Build.VERSION_CODES.GINGERBREAD)
-public class CountryAdapter extends BaseExpandableListAdapter implements Scrollable {
+public class CountryAdapter extends ExpandableScrollableAdapter<String, String> {
 
-	private final TreeMultimap<String, String> mMap;
-	private final Context mContext;
-
-	public CountryAdapter(final Context context) {
-		mMap = TreeMultimap.create();
+	public CountryAdapter() {
+		final TreeMultimap<String, String> map = TreeMultimap.create();
 
 		for (String s : Countries.sAfrica)
-			mMap.put("Africa", s);
+			map.put("Africa", s);
 
 		for (String s : Countries.sAsia)
-			mMap.put("Asia", s);
+			map.put("Asia", s);
 
 		for (String s : Countries.sEurope)
-			mMap.put("Europe", s);
+			map.put("Europe", s);
 
 		for (String s : Countries.sNorthAmerica)
-			mMap.put("North America", s);
+			map.put("North America", s);
 
 		for (String s : Countries.sOceania)
-			mMap.put("Oceania", s);
+			map.put("Oceania", s);
 
 		for (String s : Countries.sSouthAmerica)
-			mMap.put("South America", s);
-
-		mContext = context;
+			map.put("South America", s);
+
+		// the multimap only sorts, lookups go to the adapter's arrays
+		final List<String> continents = new ArrayList<String>(map.keySet());
+		final List<List<String>> countries = new ArrayList<List<String>>();
+		for (String continent : continents)
+			countries.add(new ArrayList<String>(map.get(continent)));
+		setData(continents, countries);
 	}
 
 	@Override
-	public Object getChild(int groupPosition, int childPosition) {
-		final String key = Iterables.get(mMap.keySet(), groupPosition);
-		return Iterables.get(mMap.get(key), childPosition);
+	protected View newGroupView(ViewGroup parent) {
+		final TextView grouptitle = new TextView(parent.getContext());
+		grouptitle.setTextSize(TypedValue.COMPLEX_UNIT_DIP, 24);
+		return grouptitle;
 	}
 
 	@Override
-	public long getChildId(int groupPosition, int childPosition) {
-		return childPosition;
+	protected void bindGroupView(View view, String group, boolean isExpanded) {
+		((TextView) view).setText(group);
 	}
 
 	@Override
-	public View getChildView(int groupPosition, int childPosition, boolean isLastChild, View convertView, ViewGroup parent) {
-		final String key = Iterables.get(mMap.keySet(), groupPosition);
-		final String country = Iterables.get(mMap.get(key), childPosition);
-		final TextView countrytext = new TextView(mContext);
+	protected View newChildView(ViewGroup parent) {
+		final TextView countrytext = new TextView(parent.getContext());
 		countrytext.setTextSize(TypedValue.COMPLEX_UNIT_DIP, 16);
 		countrytext.setPadding(10, 0, 0, 0);
-		countrytext.setText(country);
-
 		return countrytext;
 	}
 
 	@Override
-	public int getChildrenCount(int groupPosition) {
-		return mMap.get(Iterables.get(mMap.keySet(), groupPosition)).size();
-	}
-
-	@Override
-	public SortedSet<String> getGroup(int groupPosition) {
-		final String key = Iterables.get(mMap.keySet(), groupPosition);
-		return mMap.get(key);
-	}
-
-	@TargetApi(Build.VERSION_CODES.GINGERBREAD)
-    @Override
-	public int getGroupCount() {
-		return mMap.keySet().size();
-	}
-
-	@Override
-	public long getGroupId(int groupPosition) {
-		return groupPosition;
-	}
-
-	@Override
-	public View getGroupView(int groupPosition, boolean isExpanded, View convertView, ViewGroup parent) {
-		final String grouptext = Iterables.get(mMap.keySet(), groupPosition);
-		final TextView grouptitle = new TextView(mContext);
-		grouptitle.setTextSize(TypedValue.COMPLEX_UNIT_DIP, 24);
-		grouptitle.setText(grouptext);
-
-		return grouptitle;
-	}
-
-	@Override
-	public boolean hasStableIds() {
-		return true;
+	protected void bindChildView(View view, String child, boolean isLastChild) {
+		((TextView) view).setText(child);
 	}
 
 	@Override
@@ -111,14 +73,4 @@ public class CountryAdapter extends BaseExpandableListAdapter implements Scrolla
 		return false;
 	}
 
-	@Override
-    public String getIndicatorForPosition(int childposition, int groupposition) {
-		return  Iterables.get(mMap.keySet(), groupposition);
-    }
-
-	@Override
-    public int getScrollPosition(int childposition, int groupposition) {
-	    return childposition;
-    }
-	
 }
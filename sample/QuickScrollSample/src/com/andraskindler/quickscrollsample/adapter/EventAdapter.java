@@ -1,6 +1,8 @@
 package com.andraskindler.quickscrollsample.adapter;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
 
 import android.content.Context;
 import android.util.TypedValue;
@@ -11,18 +13,29 @@ import android.widget.BaseAdapter;
 import android.widget.TextView;
 
 import com.andraskindler.quickscroll.Scrollable;
+import com.andraskindler.quickscroll.TimeSectionIndexer;
 import com.andraskindler.quickscrollsample.model.Event;
 
 public class EventAdapter extends BaseAdapter implements Scrollable {
 
 	private final List<Event> mEvents;
 	private final Context mContext;
+	private final TimeSectionIndexer mIndexer;
 
 	public EventAdapter(final Context context) {
 		mContext = context;
 
 		mEvents = Event.getEvents();
 
+		// the events are in chronological order, every day is labeled once
+		final long[] times = new long[mEvents.size()];
+		for (int i = 0; i < times.length; i++)
+			times[i] = mEvents.get(i).getmDate().getTimeInMillis();
+		mIndexer = new TimeSectionIndexer(times, TimeSectionIndexer.BUCKET_DAY, "yyyy MMMM dd'\n'EEEE", Locale.US, TimeZone.getDefault());
+	}
+
+	public TimeSectionIndexer getIndexer() {
+		return mIndexer;
 	}
 
 	@Override
@@ -52,7 +65,7 @@ public class EventAdapter extends BaseAdapter implements Scrollable {
 
 	@Override
 	public String getIndicatorForPosition(int childposition, int groupposition) {
-		return mEvents.get(childposition).getDateString();
+		return mIndexer.getIndicatorForPosition(childposition, groupposition);
 	}
 
 	@Override
@@ -9,6 +9,7 @@ import android.view.ViewGroup;
 import android.widget.ListView;
 
 import com.andraskindler.quickscroll.QuickScroll;
+import com.andraskindler.quickscroll.SectionIndex;
 import com.andraskindler.quickscrollsample.R;
 import com.andraskindler.quickscrollsample.adapter.ContactAdapter;
 
@@ -33,7 +34,8 @@ public class ContactListFragment extends ListFragment{
 		final ListView list = (ListView) layout.findViewById(android.R.id.list);
 		
 		final QuickScroll quickscroll = (QuickScroll) layout.findViewById(R.id.quickscroll);
-		quickscroll.init(QuickScroll.TYPE_INDICATOR_WITH_HANDLE, list, adapter, QuickScroll.STYLE_HOLO);
+		quickscroll.init(QuickScroll.TYPE_INDICATOR_WITH_HANDLE, list, adapter, QuickScroll.STYLE_HOLO, SectionIndex.buildSorted(adapter, adapter.getCount()));
+		quickscroll.setSortedLabels(true);
 		quickscroll.setFixedSize(1);
 		quickscroll.setTextSize(TypedValue.COMPLEX_UNIT_DIP, 48);
 		return layout;
@@ -21,7 +21,7 @@ public class CountryFragment extends Fragment {
 	public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
 		final ViewGroup layout = (ViewGroup) inflater.inflate(R.layout.fragment_countrylist, container, false);
 
-		final CountryAdapter adapter = new CountryAdapter(getActivity());
+		final CountryAdapter adapter = new CountryAdapter();
 
 		final ExpandableListView list = ExpandableListView.class.cast(layout.findViewById(R.id.fragment_country_list));
 
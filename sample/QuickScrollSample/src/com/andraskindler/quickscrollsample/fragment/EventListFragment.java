@@ -37,9 +37,11 @@ public class EventListFragment extends ListFragment{
 		final ListView list = (ListView) layout.findViewById(android.R.id.list);
 		
 		final QuickScroll quickscroll = (QuickScroll) layout.findViewById(R.id.quickscroll);
-		quickscroll.init(QuickScroll.TYPE_INDICATOR_WITH_HANDLE, list, adapter, QuickScroll.STYLE_HOLO);
+		quickscroll.init(QuickScroll.TYPE_INDICATOR_WITH_HANDLE, list, adapter, QuickScroll.STYLE_HOLO, adapter.getIndexer().toSectionIndex());
 		quickscroll.setIndicatorColor(CORAL, CORAL_DARK, Color.WHITE);
 		quickscroll.setHandlebarColor(CORAL, CORAL, CORAL_HANDLE);
+		// two-line labels, rendered once and blitted while dragging
+		quickscroll.setLabelAtlasSize(512 * 1024);
 		return layout;
 	}
 	
@@ -14,6 +14,7 @@ import android.widget.RelativeLayout;
 import android.widget.TextView;
 
 import com.andraskindler.quickscroll.QuickScroll;
+import com.andraskindler.quickscroll.SectionIndex;
 import com.andraskindler.quickscrollsample.R;
 import com.andraskindler.quickscrollsample.adapter.MovieAdapter;
 import com.andraskindler.quickscrollsample.model.MarvelMovie;
@@ -29,8 +30,9 @@ public class MovieListFragment extends ListFragment {
 		list.setAdapter(adapter);
 
 		final QuickScroll fastTrack = QuickScroll.class.cast(root.findViewById(R.id.quickscroll));
-		fastTrack.init(QuickScroll.TYPE_POPUP, list, adapter, QuickScroll.STYLE_NONE);
-		fastTrack.setFixedSize(2);
+		// the popup takes the size of the widest label in the index
+		fastTrack.init(QuickScroll.TYPE_POPUP, list, adapter, QuickScroll.STYLE_NONE, SectionIndex.buildSorted(adapter, adapter.getCount()));
+		fastTrack.setSortedLabels(true);
 		fastTrack.setPopupColor(QuickScroll.BLUE_LIGHT, QuickScroll.BLUE_LIGHT_SEMITRANSPARENT, 1, Color.WHITE, 1);
 
 		root.addView(createAlphabetTrack());
@@ -1,10 +1,8 @@
 package com.andraskindler.quickscrollsample.model;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.GregorianCalendar;
 import java.util.List;
-import java.util.Locale;
 import java.util.Random;
 
 public class Event {
@@ -50,9 +48,4 @@ public class Event {
 
 		return events;
 	}
-
-	public String getDateString() {
-		final SimpleDateFormat format = new SimpleDateFormat("yyyy MMMM dd'\n'EEEE", Locale.US);
-		return format.format(mDate.getTime());
-	}
 }
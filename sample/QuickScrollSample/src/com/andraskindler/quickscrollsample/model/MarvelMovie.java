@@ -7,10 +7,12 @@ public class MarvelMovie {
 
 	private String Title;
 	private int year;
+	// built once, getIndicator() is called on every scroll step
+	private String indicator;
 
 	public MarvelMovie(String title, int year) {
 		super();
-		Title = title;
+		setTitle(title);
 		this.year = year;
 	}
 
@@ -20,6 +22,7 @@ public class MarvelMovie {
 
 	public void setTitle(String title) {
 		Title = title;
+		indicator = Character.toString(title.charAt(0)) + Character.toString(Character.toLowerCase(title.charAt(0)));
 	}
 
 	public int getYear() {
@@ -31,7 +34,7 @@ public class MarvelMovie {
 	}
 	
 	public String getIndicator(){
-		return Character.toString(Title.charAt(0)) + Character.toString(Character.toLowerCase(Title.charAt(0)));
+		return indicator;
 	}
 
 	public static List<MarvelMovie> getMovies(){